@@ -0,0 +1,18 @@
+package geneticalgorithm;
+
+//The problem instances the benchmarks can run on: the course data at its own 11 activities, and seeded
+//InstanceGenerator instances at any other size
+final class BenchmarkInstances {
+
+    static final long SEED = 42;
+
+    private BenchmarkInstances() {
+    }
+
+    static FitnessTables tables(int numberOfActivities) {
+        if (numberOfActivities == FitnessTables.DEFAULT.numberOfActivities) {
+            return FitnessTables.DEFAULT;
+        }
+        return InstanceGenerator.generate(numberOfActivities, SEED);
+    }
+}
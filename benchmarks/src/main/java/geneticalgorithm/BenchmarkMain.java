@@ -0,0 +1,20 @@
+package geneticalgorithm;
+
+import java.util.Arrays;
+
+//The JMH command line, with the GC and allocation profiler (-prof gc) on unless other profilers are asked for
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (!Arrays.asList(args).contains("-prof")) {
+            String[] withProfiler = Arrays.copyOf(args, args.length + 2);
+            withProfiler[args.length] = "-prof";
+            withProfiler[args.length + 1] = "gc";
+            args = withProfiler;
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+}
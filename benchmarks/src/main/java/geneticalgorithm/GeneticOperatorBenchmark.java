@@ -0,0 +1,99 @@
+package geneticalgorithm;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//The per-chromosome operators of the generation loop. Each call works on the next chromosome of a pool as large
+//as the population, so the population size decides how much of the pool stays in cache.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class GeneticOperatorBenchmark {
+
+    @Param({"100", "500", "2000"})
+    public int populationSize;
+
+    @Param({"11", "110", "1100"})
+    public int numberOfActivities;
+
+    private Chromosome[] pool;
+    private double[] fitnessScores;
+    private double[] matingProbabilities;
+    private ProbabilityDistributor<Chromosome> distributor;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        FitnessTables tables = BenchmarkInstances.tables(numberOfActivities);
+        random = new SplittableRandom(42);
+        pool = new Chromosome[populationSize];
+        fitnessScores = new double[populationSize];
+        matingProbabilities = new double[populationSize];
+        for (int i = 0; i < populationSize; i++) {
+            pool[i] = GeneticUtils.createRandomChromosome(tables, random);
+            pool[i].calculateFitness();
+            fitnessScores[i] = pool[i].getFitness();
+        }
+        SoftMax.normalize(fitnessScores, matingProbabilities, populationSize);
+        for (int i = 0; i < populationSize; i++) {
+            pool[i].setMatingProbability(matingProbabilities[i]);
+        }
+        distributor = new ProbabilityDistributor<>(List.of(pool), random);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == populationSize ? 0 : index + 1;
+        return index;
+    }
+
+    //Full evaluation: the occupancy tables are rebuilt from the genome
+    @Benchmark
+    public int calculateFitness() {
+        Chromosome chromosome = pool[nextIndex()];
+        chromosome.genomeReplaced(chromosome.getFitnessPoints());
+        chromosome.calculateFitness();
+        return chromosome.getFitnessPoints();
+    }
+
+    @Benchmark
+    public List<Chromosome> crossoverWith() {
+        return pool[nextIndex()].crossoverWith(pool[nextIndex()], random);
+    }
+
+    @Benchmark
+    public long attemptMutation() {
+        Chromosome chromosome = pool[nextIndex()];
+        chromosome.attemptMutation(random);
+        return chromosome.getZobristHash();
+    }
+
+    @Benchmark
+    public Chromosome pickAndRemove() {
+        distributor.restoreRemoved();
+        return distributor.pickAndRemove(0);
+    }
+
+    @Benchmark
+    public double[] softMaxNormalize() {
+        SoftMax.normalize(fitnessScores, matingProbabilities, populationSize);
+        return matingProbabilities;
+    }
+}
@@ -0,0 +1,48 @@
+package geneticalgorithm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//A whole generation: cull, mating probabilities, breeding and batch evaluation. The population keeps evolving
+//from one call to the next, as in a run; the first generation, which scores the random initial population,
+//happens in setup.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class PopulationBenchmark {
+
+    @Param({"100", "500", "2000"})
+    public int populationSize;
+
+    @Param({"11", "110", "1100"})
+    public int numberOfActivities;
+
+    private Population population;
+
+    @Setup
+    public void setUp() {
+        population = new Population(new RandomProvider(42), new FitnessCache(),
+                BenchmarkInstances.tables(numberOfActivities), populationSize);
+        population.runGeneration();
+    }
+
+    @Benchmark
+    public Population runGeneration() {
+        population.runGeneration();
+        return population;
+    }
+}
@@ -0,0 +1,52 @@
+package geneticalgorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//The reference rules on Gene objects, for one gene of a schedule. They name the course's own rooms and
+//sections, so they only run on the course data.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class ReferenceFitnessBenchmark {
+
+    @Param({"100", "500", "2000"})
+    public int populationSize;
+
+    private List<List<Gene>> geneLists;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        geneLists = new ArrayList<>(populationSize);
+        for (int i = 0; i < populationSize; i++) {
+            geneLists.add(GeneticUtils.createRandomChromosome(random).geneList());
+        }
+    }
+
+    @Benchmark
+    public double calculateFitnessOfGene() {
+        int index = next;
+        next = index + 1 == populationSize ? 0 : index + 1;
+        List<Gene> geneList = geneLists.get(index);
+        return GeneticUtils.calculateFitnessOfGene(geneList.get(index % geneList.size()), geneList);
+    }
+}
@@ -0,0 +1,167 @@
+package geneticalgorithm;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+//Time to quality: how long a whole run takes, in wall time and in evaluations, to first reach each fitness
+//threshold as the instance, the population and the number of threads grow. Unlike the JMH benchmarks this
+//measures the search, not a step of it, so each configuration is a single seeded run.
+//Thresholds are best fitness per activity, so they mean the same on every instance size. Each configuration
+//prints a row per threshold, "-" where the budget ran out first, then an "end" row with the state at the end.
+//Every instance is searched briefly before the sweep, so the first configuration does not pay for JIT warm-up.
+//--mutation=guided breeds with MutationEngine.GUIDED instead of uniform mutation, and --local-search runs a
+//LocalSearch on the elites of every generation, with the defaults of GeneticConstants. --domains=pruned draws
+//initial genes and mutations from a DomainIndex with the default thresholds.
+//
+//  java --enable-preview --add-modules jdk.incubator.vector -cp benchmarks.jar geneticalgorithm.ScalingBenchmark
+//      [--activities=11,110,1100] [--population=100,500] [--threads=1,4] [--thresholds=0,0.25,0.5,0.75]
+//      [--generations=1000] [--seconds=60] [--seed=42] [--mutation=uniform|guided]
+//      [--local-search=none|hill-climbing|tabu] [--domains=full|pruned]
+public final class ScalingBenchmark {
+
+    private static final int WARM_UP_GENERATIONS = 50;
+    private static final long WARM_UP_NANOS = 2_000_000_000L;
+
+    private ScalingBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int[] activityCounts = getIntsOption(args, "--activities", "11,110,1100");
+        int[] populationSizes = getIntsOption(args, "--population", "100,500");
+        int[] threadCounts = Arrays.stream(getIntsOption(args, "--threads",
+                        "1," + Runtime.getRuntime().availableProcessors()))
+                .distinct()
+                .toArray();
+        double[] thresholds = Arrays.stream(getOption(args, "--thresholds", "0,0.25,0.5,0.75").split(","))
+                .mapToDouble(Double::parseDouble)
+                .toArray();
+        int maxGenerations = Integer.parseInt(getOption(args, "--generations", "1000"));
+        long budgetNanos = (long) (Double.parseDouble(getOption(args, "--seconds", "60")) * 1e9);
+        long seed = Long.parseLong(getOption(args, "--seed", "42"));
+        MutationEngine mutationEngine = switch (getOption(args, "--mutation", "uniform")) {
+            case "uniform" -> MutationEngine.DEFAULT;
+            case "guided" -> MutationEngine.GUIDED;
+            default -> throw new IllegalArgumentException("--mutation is uniform or guided");
+        };
+        String localSearch = getOption(args, "--local-search", "none");
+        if (!List.of("none", "hill-climbing", "tabu").contains(localSearch)) {
+            throw new IllegalArgumentException("--local-search is none, hill-climbing or tabu");
+        }
+        boolean prunedDomains = switch (getOption(args, "--domains", "full")) {
+            case "full" -> false;
+            case "pruned" -> true;
+            default -> throw new IllegalArgumentException("--domains is full or pruned");
+        };
+
+        FitnessTables[] instances = Arrays.stream(activityCounts)
+                .mapToObj(BenchmarkInstances::tables)
+                .toArray(FitnessTables[]::new);
+        for (FitnessTables tables : instances) {
+            runInPool(tables, populationSizes[0], threadCounts[threadCounts.length - 1], thresholds,
+                    WARM_UP_GENERATIONS, WARM_UP_NANOS, seed, mutationEngine, localSearch, prunedDomains, false);
+        }
+
+        System.out.println("activities,population,threads,threshold,generations,evaluations,millis,best");
+        for (FitnessTables tables : instances) {
+            for (int populationSize : populationSizes) {
+                for (int threads : threadCounts) {
+                    runInPool(tables, populationSize, threads, thresholds, maxGenerations, budgetNanos, seed,
+                            mutationEngine, localSearch, prunedDomains, true);
+                }
+            }
+        }
+    }
+
+    private static void runInPool(FitnessTables tables, int populationSize, int threads, double[] thresholds,
+                                  int maxGenerations, long budgetNanos, long seed, MutationEngine mutationEngine,
+                                  String localSearch, boolean prunedDomains, boolean print)
+            throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            //The population's parallel streams run in the pool they are started from
+            pool.submit(() -> run(tables, populationSize, threads, thresholds, maxGenerations, budgetNanos, seed,
+                    mutationEngine, localSearch, prunedDomains, print)).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void run(FitnessTables tables, int populationSize, int threads, double[] thresholds,
+                            int maxGenerations, long budgetNanos, long seed, MutationEngine mutationEngine,
+                            String localSearch, boolean prunedDomains, boolean print) {
+        MetricsRegistry metrics = new MetricsRegistry();
+        Population population = new Population(new RandomProvider(seed), new FitnessCache(), tables,
+                populationSize);
+        population.setMetricsRegistry(metrics);
+        population.setMutationEngine(mutationEngine);
+        if (prunedDomains) {
+            population.setDomainIndex(new DomainIndex(tables));
+        }
+        switch (localSearch) {
+            case "hill-climbing" -> population.setLocalSearch(new HillClimbing());
+            case "tabu" -> population.setLocalSearch(new TabuSearch());
+            default -> {
+            }
+        }
+
+        int numberOfThresholds = thresholds.length;
+        int[] generations = new int[numberOfThresholds];
+        long[] evaluations = new long[numberOfThresholds];
+        long[] nanos = new long[numberOfThresholds];
+        double[] best = new double[numberOfThresholds];
+        Arrays.fill(generations, -1);
+        int reached = 0;
+        double bestPerActivity = Double.NEGATIVE_INFINITY;
+        long start = System.nanoTime();
+        long elapsed = 0;
+        while (reached < numberOfThresholds && population.getGenerationCount() < maxGenerations
+                && System.nanoTime() - start < budgetNanos) {
+            population.runGeneration();
+            elapsed = System.nanoTime() - start;
+            bestPerActivity = population.getBestIndividual().getFitness() / tables.numberOfActivities;
+            for (int i = 0; i < numberOfThresholds; i++) {
+                if (generations[i] < 0 && bestPerActivity >= thresholds[i]) {
+                    generations[i] = population.getGenerationCount();
+                    evaluations[i] = metrics.getEvaluations();
+                    nanos[i] = elapsed;
+                    best[i] = bestPerActivity;
+                    reached++;
+                }
+            }
+        }
+
+        if (!print) {
+            return;
+        }
+        String configuration = tables.numberOfActivities + "," + populationSize + "," + threads + ",";
+        for (int i = 0; i < numberOfThresholds; i++) {
+            System.out.println(configuration + thresholds[i] + "," + (generations[i] < 0 ? "-,-,-,-"
+                    : row(generations[i], evaluations[i], nanos[i], best[i])));
+        }
+        System.out.println(configuration + "end," + row(population.getGenerationCount(), metrics.getEvaluations(),
+                elapsed, bestPerActivity));
+    }
+
+    private static String row(int generations, long evaluations, long nanos, double bestPerActivity) {
+        return generations + "," + evaluations + "," + nanos / 1_000_000 + ","
+                + String.format(Locale.ROOT, "%.3f", bestPerActivity);
+    }
+
+    private static int[] getIntsOption(String[] args, String name, String defaultValue) {
+        return Arrays.stream(getOption(args, name, defaultValue).split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    private static String getOption(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return defaultValue;
+    }
+}
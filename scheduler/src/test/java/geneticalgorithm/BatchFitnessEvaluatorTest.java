@@ -0,0 +1,42 @@
+package geneticalgorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class BatchFitnessEvaluatorTest {
+
+    //Not a multiple of the capacity or of any vector width, so the last batch is partial and padded
+    private static final int NUMBER_OF_CHROMOSOMES = 203;
+    private static final int CAPACITY = 64;
+
+    @ParameterizedTest
+    @MethodSource("geneticalgorithm.TestInstances#tables")
+    void batchScoresMatchCalculateFitness(FitnessTables tables) {
+        Chromosome[] chromosomes = TestInstances.randomChromosomes(tables, NUMBER_OF_CHROMOSOMES,
+                new SplittableRandom(4));
+        new BatchFitnessEvaluator(tables, CAPACITY).evaluate(chromosomes, 0, chromosomes.length);
+        for (Chromosome chromosome : chromosomes) {
+            assertEquals(TestInstances.fullPoints(chromosome), chromosome.getFitnessPoints());
+        }
+    }
+
+    //Half of the genomes are cached already; those take their cached score, the rest are scored
+    @ParameterizedTest
+    @MethodSource("geneticalgorithm.TestInstances#tables")
+    void batchScoresWithACacheMatchCalculateFitness(FitnessTables tables) {
+        Chromosome[] chromosomes = TestInstances.randomChromosomes(tables, NUMBER_OF_CHROMOSOMES,
+                new SplittableRandom(5));
+        FitnessCache cache = new FitnessCache();
+        for (int i = 0; i < chromosomes.length; i += 2) {
+            cache.store(chromosomes[i].getZobristHash(), TestInstances.fullPoints(chromosomes[i]));
+        }
+        new BatchFitnessEvaluator(tables, CAPACITY).evaluate(chromosomes, 0, chromosomes.length, cache);
+        for (Chromosome chromosome : chromosomes) {
+            assertEquals(TestInstances.fullPoints(chromosome), chromosome.getFitnessPoints());
+        }
+    }
+}
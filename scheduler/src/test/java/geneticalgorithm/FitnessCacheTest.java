@@ -0,0 +1,48 @@
+package geneticalgorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class FitnessCacheTest {
+
+    private static final long SEED = 7;
+
+    @Test
+    void returnsStoredPointsAndMissesUnknownHashes() {
+        FitnessCache cache = new FitnessCache(16);
+        cache.store(12345L, -250);
+        assertEquals(-250, cache.lookup(12345L));
+        assertEquals(FitnessCache.MISSING, cache.lookup(54321L));
+        //Shares the slot of 12345 in a cache of 16 and evicts it
+        cache.store(12345L + (16L << 32) + 16, 100);
+        assertEquals(FitnessCache.MISSING, cache.lookup(12345L));
+    }
+
+    //A small cache, so genomes are evicted and scored again as well as found
+    @Test
+    void cachedScoresMatchFullEvaluation() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        FitnessCache cache = new FitnessCache(64);
+        Chromosome[] genomes = TestInstances.randomChromosomes(FitnessTables.DEFAULT, 200, random);
+        for (int i = 0; i < 20_000; i++) {
+            Chromosome chromosome = genomes[random.nextInt(genomes.length)].copy();
+            chromosome.calculateFitness(cache);
+            assertEquals(TestInstances.fullPoints(chromosome), chromosome.getFitnessPoints());
+        }
+        assertEquals(20_000, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    void seededRunDoesNotDependOnTheCache() {
+        Population cached = new Population(new RandomProvider(SEED), new FitnessCache());
+        Population uncached = new Population(new RandomProvider(SEED), new FitnessCache(1));
+        for (int generation = 0; generation < 30; generation++) {
+            cached.runGeneration();
+            uncached.runGeneration();
+        }
+        PopulationAssertions.assertSameChromosomes(uncached, cached);
+    }
+}
@@ -0,0 +1,75 @@
+package geneticalgorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+//The one-pass evaluator against the reference, and delta evaluation after crossover and mutation against
+//scoring from scratch
+class FitnessEvaluationTest {
+
+    private static final int POPULATION_SIZE = 100;
+    private static final int GENERATIONS = 20;
+
+    @Test
+    void onePassEvaluationMatchesTheReference() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (Chromosome chromosome : TestInstances.randomChromosomes(FitnessTables.DEFAULT, 5_000, random)) {
+            assertEquals(GeneticUtils.calculateReferenceFitness(chromosome.geneList()),
+                    FitnessEvaluator.evaluate(chromosome), 1e-9, chromosome::toString);
+        }
+    }
+
+    //Children are recycled as in Population, so their occupancy tables are derived from a parent's, and each
+    //is mutated once more after scoring, which moves single genes in the tables
+    @ParameterizedTest
+    @MethodSource("geneticalgorithm.TestInstances#tables")
+    void deltaEvaluationMatchesFullEvaluation(FitnessTables tables) {
+        SplittableRandom random = new SplittableRandom(2);
+        MutationEngine mutationEngine = new MutationEngine(0.01);
+        Chromosome[] parents = TestInstances.randomChromosomes(tables, POPULATION_SIZE, random);
+        Chromosome[] children = TestInstances.randomChromosomes(tables, POPULATION_SIZE, random);
+        for (Chromosome parent : parents) {
+            parent.calculateFitness();
+        }
+
+        for (int generation = 0; generation < GENERATIONS; generation++) {
+            for (int i = 0; i < POPULATION_SIZE; i += 2) {
+                parents[random.nextInt(POPULATION_SIZE)].crossoverInto(parents[random.nextInt(POPULATION_SIZE)],
+                        children[i], children[i + 1], random);
+                for (Chromosome child : new Chromosome[]{children[i], children[i + 1]}) {
+                    mutationEngine.mutate(child, null, random);
+                    child.calculateFitness();
+                    assertEquals(TestInstances.fullPoints(child), child.getFitnessPoints());
+                    mutationEngine.mutate(child, null, random);
+                    child.calculateFitness();
+                    assertEquals(TestInstances.fullPoints(child), child.getFitnessPoints());
+                }
+            }
+            Chromosome[] swap = parents;
+            parents = children;
+            children = swap;
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("geneticalgorithm.TestInstances#tables")
+    void fitnessDeltaMatchesTheChangeInFullEvaluation(FitnessTables tables) {
+        SplittableRandom random = new SplittableRandom(3);
+        for (Chromosome chromosome : TestInstances.randomChromosomes(tables, 200, random)) {
+            int gene = random.nextInt(tables.numberOfActivities);
+            int room = random.nextInt(tables.numberOfRooms);
+            int time = random.nextInt(tables.numberOfTimes);
+            int facilitator = random.nextInt(tables.numberOfFacilitators);
+            int pointsBefore = TestInstances.fullPoints(chromosome);
+            double delta = FitnessEvaluator.fitnessDeltaOf(chromosome, gene, room, time, facilitator);
+            chromosome.setGene(gene, room, time, facilitator);
+            assertEquals((TestInstances.fullPoints(chromosome) - pointsBefore) / FitnessEvaluator.POINTS_PER_UNIT,
+                    delta, 1e-9);
+        }
+    }
+}
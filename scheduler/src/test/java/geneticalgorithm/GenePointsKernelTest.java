@@ -0,0 +1,65 @@
+package geneticalgorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+//Both kernels against calculateFitness, on uniform random genomes and on crowded ones where most genes share a
+//few rooms, times and facilitators, so clash, double booking and overload counts go well above 1
+class GenePointsKernelTest {
+
+    private static final int NUMBER_OF_CHROMOSOMES = 203;
+    private static final int CAPACITY = 64;
+    private static final int CROWDED_VALUES = 3;
+
+    @ParameterizedTest
+    @MethodSource("geneticalgorithm.TestInstances#tables")
+    void scalarKernelMatchesCalculateFitness(FitnessTables tables) {
+        assertKernelMatchesCalculateFitness(tables, new ScalarGenePointsKernel(tables));
+    }
+
+    @ParameterizedTest
+    @MethodSource("geneticalgorithm.TestInstances#tables")
+    void vectorKernelMatchesCalculateFitness(FitnessTables tables) {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "Needs --add-modules jdk.incubator.vector");
+        assertKernelMatchesCalculateFitness(tables, new VectorGenePointsKernel(tables));
+    }
+
+    private static void assertKernelMatchesCalculateFitness(FitnessTables tables, GenePointsKernel kernel) {
+        SplittableRandom random = new SplittableRandom(6);
+        BatchFitnessEvaluator evaluator = new BatchFitnessEvaluator(tables, CAPACITY, kernel);
+        //The same evaluator twice, so the second batches start from the tables the first ones reset
+        for (Chromosome[] chromosomes : new Chromosome[][]{
+                TestInstances.randomChromosomes(tables, NUMBER_OF_CHROMOSOMES, random),
+                crowdedChromosomes(tables, NUMBER_OF_CHROMOSOMES, random)}) {
+            evaluator.evaluate(chromosomes, 0, chromosomes.length);
+            for (Chromosome chromosome : chromosomes) {
+                Chromosome expected = chromosome.copy();
+                expected.calculateFitness();
+                assertEquals(expected.getFitnessPoints(), chromosome.getFitnessPoints());
+            }
+        }
+    }
+
+    private static Chromosome[] crowdedChromosomes(FitnessTables tables, int count, SplittableRandom random) {
+        Chromosome[] chromosomes = new Chromosome[count];
+        int numberOfGenes = tables.numberOfActivities;
+        for (int i = 0; i < count; i++) {
+            int[] rooms = new int[numberOfGenes];
+            int[] times = new int[numberOfGenes];
+            int[] facilitators = new int[numberOfGenes];
+            for (int gene = 0; gene < numberOfGenes; gene++) {
+                rooms[gene] = random.nextInt(Math.min(CROWDED_VALUES, tables.numberOfRooms));
+                times[gene] = random.nextInt(Math.min(CROWDED_VALUES, tables.numberOfTimes));
+                facilitators[gene] = random.nextInt(Math.min(CROWDED_VALUES, tables.numberOfFacilitators));
+            }
+            chromosomes[i] = new Chromosome(tables, rooms, times, facilitators);
+        }
+        return chromosomes;
+    }
+}
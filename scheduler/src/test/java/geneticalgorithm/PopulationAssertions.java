@@ -0,0 +1,24 @@
+package geneticalgorithm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+final class PopulationAssertions {
+
+    private PopulationAssertions() {
+    }
+
+    //Same generation, and the same genomes and scores in the same order
+    static void assertSameChromosomes(Population expected, Population actual) {
+        assertEquals(expected.getGenerationCount(), actual.getGenerationCount());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Chromosome expectedChromosome = expected.chromosomeAt(i);
+            Chromosome actualChromosome = actual.chromosomeAt(i);
+            assertArrayEquals(expectedChromosome.rooms(), actualChromosome.rooms());
+            assertArrayEquals(expectedChromosome.times(), actualChromosome.times());
+            assertArrayEquals(expectedChromosome.facilitators(), actualChromosome.facilitators());
+            assertEquals(expectedChromosome.getFitnessPoints(), actualChromosome.getFitnessPoints());
+        }
+    }
+}
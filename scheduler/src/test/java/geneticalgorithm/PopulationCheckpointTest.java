@@ -0,0 +1,58 @@
+package geneticalgorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PopulationCheckpointTest {
+
+    private static final long SEED = 42;
+    private static final int CHECKPOINT_GENERATION = 10;
+    private static final int GENERATIONS = 30;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumedRunMatchesTheUninterruptedRun() throws IOException {
+        Population uninterrupted = new Population(new RandomProvider(SEED));
+        runGenerations(uninterrupted, GENERATIONS);
+
+        Population interrupted = new Population(new RandomProvider(SEED));
+        runGenerations(interrupted, CHECKPOINT_GENERATION);
+        Path checkpoint = directory.resolve("run.ckpt");
+        PopulationCheckpoint.write(interrupted, checkpoint);
+        Population resumed = PopulationCheckpoint.resume(checkpoint);
+        PopulationAssertions.assertSameChromosomes(interrupted, resumed);
+        assertEquals(SEED, resumed.getSeed());
+
+        runGenerations(resumed, GENERATIONS - CHECKPOINT_GENERATION);
+        PopulationAssertions.assertSameChromosomes(uninterrupted, resumed);
+    }
+
+    @Test
+    void resumedRunOfAGeneratedInstanceMatchesTheUninterruptedRun() throws IOException {
+        FitnessTables tables = InstanceGenerator.generate(300, 3);
+        Population uninterrupted = new Population(new RandomProvider(SEED), new FitnessCache(), tables, 100);
+        runGenerations(uninterrupted, GENERATIONS);
+
+        Population interrupted = new Population(new RandomProvider(SEED), new FitnessCache(), tables, 100);
+        runGenerations(interrupted, CHECKPOINT_GENERATION);
+        Path checkpoint = directory.resolve("generated.ckpt");
+        PopulationCheckpoint.write(interrupted, checkpoint);
+        Population resumed = PopulationCheckpoint.resume(checkpoint, tables, new FitnessCache());
+
+        runGenerations(resumed, GENERATIONS - CHECKPOINT_GENERATION);
+        PopulationAssertions.assertSameChromosomes(uninterrupted, resumed);
+    }
+
+    private static void runGenerations(Population population, int generations) {
+        for (int generation = 0; generation < generations; generation++) {
+            population.runGeneration();
+        }
+    }
+}
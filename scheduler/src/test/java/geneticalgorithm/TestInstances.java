@@ -0,0 +1,30 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+//The instances the tests score: the course data and seeded InstanceGenerator instances of 110 and 1100 activities
+final class TestInstances {
+
+    private TestInstances() {
+    }
+
+    static Stream<FitnessTables> tables() {
+        return Stream.of(FitnessTables.DEFAULT, InstanceGenerator.generate(110, 1),
+                InstanceGenerator.generate(1100, 2));
+    }
+
+    static Chromosome[] randomChromosomes(FitnessTables tables, int count, SplittableRandom random) {
+        Chromosome[] chromosomes = new Chromosome[count];
+        for (int i = 0; i < count; i++) {
+            chromosomes[i] = GeneticUtils.createRandomChromosome(tables, random);
+        }
+        return chromosomes;
+    }
+
+    //Scored from scratch, sharing no state with the chromosome
+    static int fullPoints(Chromosome chromosome) {
+        return FitnessEvaluator.evaluatePoints(chromosome.tables(), chromosome.rooms().clone(),
+                chromosome.times().clone(), chromosome.facilitators().clone());
+    }
+}
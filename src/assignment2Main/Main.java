@@ -1,32 +1,331 @@
 package assignment2Main;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 
+import geneticalgorithm.AnytimeSolver;
+import geneticalgorithm.CheckpointWriter;
+import geneticalgorithm.Chromosome;
+import geneticalgorithm.DomainIndex;
+import geneticalgorithm.FitnessCache;
+import geneticalgorithm.FitnessRules;
+import geneticalgorithm.FitnessTables;
 import geneticalgorithm.GeneticConstants;
+import geneticalgorithm.HillClimbing;
+import geneticalgorithm.InstanceGenerator;
+import geneticalgorithm.IslandCoordinator;
+import geneticalgorithm.IslandModel;
+import geneticalgorithm.IslandWorker;
+import geneticalgorithm.MetricsRegistry;
+import geneticalgorithm.MutationEngine;
+import geneticalgorithm.OffHeapPopulation;
 import geneticalgorithm.Population;
+import geneticalgorithm.PopulationCheckpoint;
+import geneticalgorithm.ProgressReporter;
+import geneticalgorithm.RandomProvider;
+import geneticalgorithm.RuleProfile;
+import geneticalgorithm.TabuSearch;
+import records.DataListManager;
 
 
+//Options: --seed=N replays a run exactly (otherwise a seed is picked and printed),
+//--islands=K runs K populations on their own threads with periodic migration,
+//--offheap=N runs one population of N chromosomes stored outside the heap (needs --enable-preview on Java 21),
+//with --activities=N and --instance-seed=S on an InstanceGenerator instance instead of the course data,
+//--checkpoint=FILE saves the single population every GeneticConstants.CHECKPOINT_INTERVAL generations,
+//--resume=FILE continues a single population run from a checkpoint, with the seed it was started with,
+//--deadline=MS, --target=FITNESS and --stagnation=GENERATIONS replace the fixed single population run with an
+//AnytimeSolver that stops at whichever of them comes first,
+//--report-every=GENERATIONS and --report-ms=MS sample the progress lines (default: every generation),
+//--quiet prints no progress lines, only the result,
+//--metrics prints per-phase timings, allocation and selection pressure of a single population run at the end,
+//--rules=FILE scores a single population run with the weights and extra rules of a rules file (see FitnessRules
+//and fitness-rules.properties), --rule-profile prints how often each rule fired and what it contributed,
+//--guided-mutation mutates the offspring of a single population run towards free, fitting values,
+//--pruned-domains draws the rooms, times and facilitators of a single population run only from each activity's
+//DomainIndex domains, with rooms up to --domain-capacity-ratio=R times the enrollment (default
+//GeneticConstants.DOMAIN_MAX_CAPACITY_RATIO),
+//--local-search=hill-climbing|tabu improves the best survivors of every generation of a single population run,
+//--local-search-elites=K of them (default GeneticConstants.LOCAL_SEARCH_ELITES) within --local-search-ms=MS
+//(default GeneticConstants.LOCAL_SEARCH_BUDGET_MILLIS),
+//--coordinator=ADDRESS runs a distributed island model, waiting for --workers=K worker processes (default
+//GeneticConstants.NUMBER_OF_ISLANDS) on host:port or unix:PATH; --activities=N and --instance-seed=S solve an
+//InstanceGenerator instance instead of the course data; --deadline, --target and --stagnation apply as above,
+//--worker=ADDRESS runs one island for the coordinator at ADDRESS
 public class Main {
     public static void main(String[] args) throws IOException {
-        Population population = new Population();
+        String worker = getOption(args, "worker");
+        if(worker != null) {
+            runWorker(worker);
+            return;
+        }
 
-        for(int i = 0; i < GeneticConstants.NUMBER_OF_GENERATIONS; i++) {
-            population.runGeneration();
-            population.printBestIndividualInformation();
+        String rules = getOption(args, "rules");
+        FitnessTables tables = rules == null ? FitnessTables.DEFAULT : new FitnessTables(DataListManager.ACTIVITIES,
+                DataListManager.ROOMS, DataListManager.TIMES, DataListManager.FACILITATORS,
+                FitnessRules.load(Paths.get(rules)));
+
+        String resume = getOption(args, "resume");
+        Population resumedPopulation = resume != null
+                ? PopulationCheckpoint.resume(Paths.get(resume), tables, new FitnessCache()) : null;
+
+        String seed = getOption(args, "seed");
+        RandomProvider randomProvider;
+        if(resumedPopulation != null) {
+            randomProvider = new RandomProvider(resumedPopulation.getSeed());
+            System.out.println("Resuming generation " + resumedPopulation.getGenerationCount() + " from " + resume);
+        } else if(seed != null) {
+            randomProvider = new RandomProvider(Long.parseLong(seed));
+        } else {
+            randomProvider = RandomProvider.withRandomSeed();
         }
+        System.out.println("Seed: " + randomProvider.getSeed());
 
-        double previousAverageFitnessScore;
-        do {
-            previousAverageFitnessScore = population.getAverageFitness();
-            population.runGeneration();
-            population.printBestIndividualInformation();
-        } while (population.getAverageFitness() > 1.01 * previousAverageFitnessScore);
+        String islands = getOption(args, "islands");
+        String offHeap = getOption(args, "offheap");
+        String coordinator = getOption(args, "coordinator");
+        Chromosome bestIndividual;
+        if(coordinator != null) {
+            bestIndividual = runCoordinator(coordinator, args, randomProvider);
+        } else if(islands != null) {
+            bestIndividual = runIslands(Integer.parseInt(islands), randomProvider);
+        } else if(offHeap != null) {
+            String activities = getOption(args, "activities");
+            String instanceSeed = getOption(args, "instance-seed");
+            FitnessTables offHeapTables = activities == null ? tables : InstanceGenerator.generate(
+                    Integer.parseInt(activities), instanceSeed != null ? Long.parseLong(instanceSeed) : 0);
+            bestIndividual = runOffHeapPopulation(Integer.parseInt(offHeap), offHeapTables, randomProvider,
+                    createReporter(args));
+        } else {
+            Population population = resumedPopulation != null ? resumedPopulation
+                    : new Population(randomProvider, new FitnessCache(), tables,
+                    GeneticConstants.INITIAL_POPULATION_SIZE);
+            if(hasFlag(args, "metrics")) {
+                population.setMetricsRegistry(new MetricsRegistry());
+            }
+            if(hasFlag(args, "guided-mutation")) {
+                population.setMutationEngine(MutationEngine.GUIDED);
+            }
+            if(hasFlag(args, "pruned-domains")) {
+                String ratio = getOption(args, "domain-capacity-ratio");
+                DomainIndex domains = new DomainIndex(tables, new DomainIndex.Thresholds(
+                        ratio != null ? Integer.parseInt(ratio) : GeneticConstants.DOMAIN_MAX_CAPACITY_RATIO,
+                        GeneticConstants.DOMAIN_MIN_TIME_POINTS, GeneticConstants.DOMAIN_LISTED_FACILITATORS_ONLY,
+                        GeneticConstants.DOMAIN_MIN_SIZE));
+                population.setDomainIndex(domains);
+                System.out.printf("Pruned domains: 10^%.1f of 10^%.1f schedules%n", domains.log10SearchSpace(),
+                        domains.log10FullSearchSpace());
+            }
+            String localSearch = getOption(args, "local-search");
+            if(localSearch != null) {
+                String elites = getOption(args, "local-search-elites");
+                String budget = getOption(args, "local-search-ms");
+                population.setLocalSearch(
+                        switch(localSearch) {
+                            case "hill-climbing" -> new HillClimbing();
+                            case "tabu" -> new TabuSearch();
+                            default -> throw new IllegalArgumentException("--local-search is hill-climbing or tabu");
+                        },
+                        elites != null ? Integer.parseInt(elites) : GeneticConstants.LOCAL_SEARCH_ELITES,
+                        Duration.ofMillis(budget != null ? Long.parseLong(budget)
+                                : GeneticConstants.LOCAL_SEARCH_BUDGET_MILLIS)
+                );
+            }
+            if(hasFlag(args, "rule-profile")) {
+                population.setRuleProfile(new RuleProfile(tables));
+            }
+            String checkpoint = getOption(args, "checkpoint");
+            Path checkpointPath = checkpoint != null ? Paths.get(checkpoint) : null;
+            AnytimeSolver solver = createSolver(args);
+            ProgressReporter reporter = createReporter(args);
+            bestIndividual = solver != null
+                    ? runAnytimeSolver(solver, population, reporter, checkpointPath)
+                    : runSinglePopulation(population, reporter, checkpointPath);
+            if(population.getMetricsRegistry() != null) {
+                System.out.println(population.getMetricsRegistry());
+            }
+            if(population.getRuleProfile() != null) {
+                System.out.println(population.getRuleProfile());
+            }
+        }
+
+        Files.writeString(Paths.get("schedule_output.txt"), bestIndividual.toPrettyString());
+    }
+
+    //A resumed population continues from its saved generation count
+    private static Chromosome runSinglePopulation(Population population, ProgressReporter reporter, Path checkpoint)
+            throws IOException {
+        try(reporter;
+            CheckpointWriter checkpointWriter = checkpoint != null ? new CheckpointWriter(checkpoint) : null) {
+            while(population.getGenerationCount() < GeneticConstants.NUMBER_OF_GENERATIONS) {
+                runGeneration(population, reporter, checkpointWriter);
+            }
+
+            double previousAverageFitnessScore;
+            do {
+                previousAverageFitnessScore = population.getAverageFitness();
+                runGeneration(population, reporter, checkpointWriter);
+            } while (population.getAverageFitness() > 1.01 * previousAverageFitnessScore);
+        }
+
+        population.printBestIndividualInformation();
+        System.out.println(population.getFitnessCache());
+        return population.getBestIndividual();
+    }
+
+    private static void runGeneration(Population population, ProgressReporter reporter,
+                                      CheckpointWriter checkpointWriter) throws IOException {
+        population.runGeneration();
+        generationCompleted(population, reporter, checkpointWriter);
+    }
+
+    private static void generationCompleted(Population population, ProgressReporter reporter,
+                                            CheckpointWriter checkpointWriter) throws IOException {
+        reporter.report(population);
+        if(checkpointWriter != null && population.getGenerationCount() % GeneticConstants.CHECKPOINT_INTERVAL == 0) {
+            checkpointWriter.checkpoint(population);
+        }
+    }
+
+    //Null unless one of the anytime options is given
+    private static AnytimeSolver createSolver(String[] args) {
+        String deadline = getOption(args, "deadline");
+        String target = getOption(args, "target");
+        String stagnation = getOption(args, "stagnation");
+        if(deadline == null && target == null && stagnation == null) {
+            return null;
+        }
+        return new AnytimeSolver(
+                deadline != null ? Duration.ofMillis(Long.parseLong(deadline)) : null,
+                target != null ? Double.parseDouble(target) : AnytimeSolver.NO_TARGET,
+                stagnation != null ? Integer.parseInt(stagnation) : AnytimeSolver.NO_STAGNATION_LIMIT
+        );
+    }
 
+    private static Chromosome runAnytimeSolver(AnytimeSolver solver, Population population, ProgressReporter reporter,
+                                               Path checkpoint) throws IOException {
+        AnytimeSolver.Result result;
+        try(reporter;
+            CheckpointWriter checkpointWriter = checkpoint != null ? new CheckpointWriter(checkpoint) : null) {
+            result = solver.solve(population, solvedPopulation -> {
+                try {
+                    generationCompleted(solvedPopulation, reporter, checkpointWriter);
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        population.printBestIndividualInformation();
+        System.out.println("Stopped after " + result.generations() + " generations in "
+                + result.elapsedNanos() / 1_000_000 + " ms: " + result.stopReason());
+        System.out.println(population.getFitnessCache());
+        return result.bestIndividual();
+    }
 
-        Files.writeString(Paths.get("schedule_output.txt"), population.getBestIndividual().toPrettyString());
+    private static Chromosome runIslands(int numberOfIslands, RandomProvider randomProvider) {
+        IslandModel islandModel = new IslandModel(
+                numberOfIslands,
+                GeneticConstants.MIGRATION_INTERVAL,
+                GeneticConstants.MIGRANTS_PER_MIGRATION,
+                IslandModel.Topology.RING,
+                randomProvider
+        );
+        islandModel.runGenerations(GeneticConstants.NUMBER_OF_GENERATIONS);
+        islandModel.getBestIsland().printBestIndividualInformation();
+        System.out.println(islandModel.getBestIsland().getFitnessCache());
+        return islandModel.getBestIndividual();
+    }
 
+    private static Chromosome runCoordinator(String address, String[] args, RandomProvider randomProvider)
+            throws IOException {
+        String workers = getOption(args, "workers");
+        IslandCoordinator coordinator = new IslandCoordinator(address,
+                workers != null ? Integer.parseInt(workers) : GeneticConstants.NUMBER_OF_ISLANDS, randomProvider);
+        String activities = getOption(args, "activities");
+        if(activities != null) {
+            String instanceSeed = getOption(args, "instance-seed");
+            coordinator.setGeneratedInstance(Integer.parseInt(activities),
+                    instanceSeed != null ? Long.parseLong(instanceSeed) : 0);
+        }
+        String deadline = getOption(args, "deadline");
+        String target = getOption(args, "target");
+        String stagnation = getOption(args, "stagnation");
+        if(deadline != null || target != null || stagnation != null) {
+            coordinator.setStopConditions(
+                    Integer.MAX_VALUE,
+                    deadline != null ? Duration.ofMillis(Long.parseLong(deadline)) : null,
+                    target != null ? Double.parseDouble(target) : AnytimeSolver.NO_TARGET,
+                    stagnation != null ? Integer.parseInt(stagnation) : AnytimeSolver.NO_STAGNATION_LIMIT
+            );
+        }
 
+        System.out.println("Waiting for workers on " + address);
+        IslandCoordinator.Result result = coordinator.run();
+        System.out.println("_______________________________________________________");
+        System.out.println("Best Individual from island: " + result.bestIsland());
+        System.out.println(result.bestIndividual());
+        System.out.println("Best Fitness Score: " + result.bestIndividual().getFitness());
+        System.out.println("_______________________________________________________");
+        System.out.println("Stopped after " + result.generations() + " generations in "
+                + result.elapsedNanos() / 1_000_000 + " ms: " + result.stopReason());
+        return result.bestIndividual();
+    }
+
+    private static void runWorker(String address) throws IOException {
+        IslandWorker.Result result = new IslandWorker(address).run();
+        System.out.println("Island " + result.island() + " stopped after " + result.generations()
+                + " generations, best fitness: " + result.bestIndividual().getFitness());
+    }
+
+    private static Chromosome runOffHeapPopulation(int populationSize, FitnessTables tables,
+                                                   RandomProvider randomProvider, ProgressReporter reporter) {
+        try(OffHeapPopulation population = new OffHeapPopulation(randomProvider, populationSize, new FitnessCache(),
+                tables)) {
+            try(reporter) {
+                for(int i = 0; i < GeneticConstants.NUMBER_OF_GENERATIONS; i++) {
+                    population.runGeneration();
+                    reporter.report(population);
+                }
+            }
+            population.printBestIndividualInformation();
+            System.out.println(population.getFitnessCache());
+            return population.getBestIndividual();
+        }
+    }
+
+    private static ProgressReporter createReporter(String[] args) {
+        if(hasFlag(args, "quiet")) {
+            return ProgressReporter.quiet();
+        }
+        String everyGenerations = getOption(args, "report-every");
+        String everyMillis = getOption(args, "report-ms");
+        return new ProgressReporter(
+                System.out,
+                everyGenerations != null ? Integer.parseInt(everyGenerations) : 0,
+                everyMillis != null ? Long.parseLong(everyMillis) : 0
+        );
+    }
+
+    private static boolean hasFlag(String[] args, String name) {
+        for(String arg : args) {
+            if(arg.equals("--" + name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getOption(String[] args, String name) {
+        for(String arg : args) {
+            if(arg.startsWith("--" + name + "=")) {
+                return arg.substring(name.length() + 3);
+            }
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
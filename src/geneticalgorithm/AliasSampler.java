@@ -0,0 +1,97 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+import java.util.function.IntToDoubleFunction;
+
+//Vose's alias method: builds a table in O(n) from a discrete distribution, then draws from it in O(1).
+//The table is read-only once built, so one sampler can be shared by threads that bring their own random.
+//A sampler can also be rebuilt in place for a new distribution of up to its capacity, without allocating.
+public final class AliasSampler {
+    private final double[] acceptanceProbabilities;
+    private final int[] aliases;
+    //Scratch space for building the table
+    private final double[] scaled;
+    private final int[] small;
+    private final int[] large;
+    private int size;
+
+    public AliasSampler(double[] weights) {
+        this(weights.length);
+        build(weights, weights.length);
+    }
+
+    public AliasSampler(int capacity) {
+        acceptanceProbabilities = new double[capacity];
+        aliases = new int[capacity];
+        scaled = new double[capacity];
+        small = new int[capacity];
+        large = new int[capacity];
+    }
+
+    //Replaces the distribution with the first count weights
+    public void build(double[] weights, int count) {
+        build(i -> weights[i], count);
+    }
+
+    //As above, for weights that are not in a heap array, e.g. in an OffHeapChromosomeStore
+    public void build(IntToDoubleFunction weights, int count) {
+        if (count == 0) {
+            throw new IllegalArgumentException("Cannot sample from an empty distribution");
+        }
+        if (count > acceptanceProbabilities.length) {
+            throw new IllegalArgumentException("A distribution of " + count + " weights exceeds the capacity of "
+                    + acceptanceProbabilities.length);
+        }
+        size = count;
+
+        double totalWeight = 0;
+        for (int i = 0; i < size; i++) {
+            totalWeight += weights.applyAsDouble(i);
+        }
+
+        //Columns scaled so the average is 1, split into those under and over the average
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights.applyAsDouble(i) * size / totalWeight;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        //Each under-full column is topped up by one over-full column, which becomes its alias
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            acceptanceProbabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        //Whatever is left is full up to rounding error
+        while (largeCount > 0) {
+            int more = large[--largeCount];
+            acceptanceProbabilities[more] = 1.0;
+            aliases[more] = more;
+        }
+        while (smallCount > 0) {
+            int less = small[--smallCount];
+            acceptanceProbabilities[less] = 1.0;
+            aliases[less] = less;
+        }
+    }
+
+    public int sample(SplittableRandom random) {
+        int column = random.nextInt(size);
+        return random.nextDouble() < acceptanceProbabilities[column] ? column : aliases[column];
+    }
+
+    public int size() {
+        return size;
+    }
+}
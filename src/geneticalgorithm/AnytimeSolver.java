@@ -0,0 +1,95 @@
+package geneticalgorithm;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+//Runs generations until the first of: the wall-clock budget would be exceeded, the best fitness reaches the
+//target, the best fitness has not improved for stagnationWindow generations, or cancel() is called (or the
+//solving thread is interrupted). The best chromosome is always kept at index 0 of the population, so whenever
+//the run stops it returns the best schedule seen so far.
+//Conditions are checked between generations. A generation is not started if the last one, listener included,
+//taking as long again would end past the deadline; the first generation always runs, since it is the one that
+//scores the initial population.
+public final class AnytimeSolver {
+
+    public enum StopReason {
+        DEADLINE,
+        TARGET_REACHED,
+        STAGNATED,
+        CANCELLED
+    }
+
+    public record Result(Chromosome bestIndividual, StopReason stopReason, int generations, long elapsedNanos) {
+    }
+
+    //Pass these to leave a condition out; a null budget means no deadline
+    public static final double NO_TARGET = Double.POSITIVE_INFINITY;
+    public static final int NO_STAGNATION_LIMIT = 0;
+
+    private final Duration budget;
+    private final double targetFitness;
+    private final int stagnationWindow;
+    private volatile boolean cancelled;
+
+    public AnytimeSolver(Duration budget, double targetFitness, int stagnationWindow) {
+        if (budget != null && budget.isNegative()) {
+            throw new IllegalArgumentException("The budget must not be negative, was " + budget);
+        }
+        if (stagnationWindow < 0) {
+            throw new IllegalArgumentException("The stagnation window must not be negative, was " + stagnationWindow);
+        }
+        this.budget = budget;
+        this.targetFitness = targetFitness;
+        this.stagnationWindow = stagnationWindow;
+    }
+
+    //Safe to call from any thread; the running solve stops after its current generation
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public Result solve(Population population) {
+        return solve(population, generatedPopulation -> {
+        });
+    }
+
+    //The listener is called on the solving thread after every generation
+    public Result solve(Population population, Consumer<Population> generationListener) {
+        long start = System.nanoTime();
+        long deadline = budget != null ? start + budget.toNanos() : Long.MAX_VALUE;
+        int firstGeneration = population.getGenerationCount();
+        int bestPoints = Integer.MIN_VALUE;
+        int generationsWithoutImprovement = 0;
+        StopReason stopReason = null;
+        try {
+            while (stopReason == null) {
+                long generationStart = System.nanoTime();
+                population.runGeneration();
+                generationListener.accept(population);
+                long now = System.nanoTime();
+
+                int points = population.getBestIndividual().getFitnessPoints();
+                if (points > bestPoints) {
+                    bestPoints = points;
+                    generationsWithoutImprovement = 0;
+                } else {
+                    generationsWithoutImprovement++;
+                }
+
+                if (cancelled || Thread.currentThread().isInterrupted()) {
+                    stopReason = StopReason.CANCELLED;
+                } else if (population.getStatistics().getBestFitness() >= targetFitness) {
+                    stopReason = StopReason.TARGET_REACHED;
+                } else if (stagnationWindow > 0 && generationsWithoutImprovement >= stagnationWindow) {
+                    stopReason = StopReason.STAGNATED;
+                } else if (deadline - now < now - generationStart) {
+                    stopReason = StopReason.DEADLINE;
+                }
+            }
+        } finally {
+            cancelled = false;
+        }
+        return new Result(population.getBestIndividual().copy(), stopReason,
+                population.getGenerationCount() - firstGeneration, System.nanoTime() - start);
+    }
+}
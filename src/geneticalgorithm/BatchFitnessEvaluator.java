@@ -0,0 +1,185 @@
+package geneticalgorithm;
+
+import java.util.Arrays;
+
+//Scores many chromosomes at once. The genomes are copied column-major so the per-gene rules run across
+//chromosomes in vector lanes (see GenePointsKernel); the SLA section rules and the consecutive facilitator rule
+//touch a handful of genes each and stay scalar. All arithmetic is in integer points, so the scores are
+//bit-identical to Chromosome.calculateFitness whichever kernel runs.
+//The Vector API kernel needs the incubator module (--add-modules jdk.incubator.vector at compile and run time);
+//without it the scalar kernel is used. One evaluator per thread: it reuses its buffers.
+public final class BatchFitnessEvaluator {
+
+    private static final boolean VECTOR_API_AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private final FitnessTables tables;
+    private final GenePointsKernel kernel;
+    private final int capacity;
+    //capacity rounded up to whole kernel lanes; the padding lanes hold stale but valid genes
+    private final int stride;
+    private final GenePointsKernel.BatchColumns columns;
+    private final int[] genePoints;
+    private final Chromosome[] batch;
+
+    //Scratch for the consecutive facilitator rule
+    private final int[] facilitatorLoads;
+    private final int[] firstGenes;
+    private final int[] lastGenes;
+    private final boolean[] hasConsecutivePair;
+    private final boolean[] seenTimes;
+
+    public BatchFitnessEvaluator(int capacity) {
+        this(FitnessTables.DEFAULT, capacity);
+    }
+
+    BatchFitnessEvaluator(FitnessTables tables, int capacity) {
+        this(tables, capacity, createKernel(tables));
+    }
+
+    //With a given kernel, e.g. to compare the kernels
+    BatchFitnessEvaluator(FitnessTables tables, int capacity, GenePointsKernel kernel) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive, was " + capacity);
+        }
+        this.tables = tables;
+        this.capacity = capacity;
+        this.kernel = kernel;
+        stride = (capacity + kernel.lanes() - 1) / kernel.lanes() * kernel.lanes();
+        columns = new GenePointsKernel.BatchColumns(tables.numberOfActivities, stride);
+        genePoints = new int[stride];
+        batch = new Chromosome[capacity];
+        facilitatorLoads = new int[tables.numberOfFacilitators];
+        firstGenes = new int[tables.numberOfFacilitators];
+        lastGenes = new int[tables.numberOfFacilitators];
+        hasConsecutivePair = new boolean[tables.numberOfFacilitators];
+        seenTimes = new boolean[tables.numberOfFacilitators * tables.numberOfTimes];
+    }
+
+    private static GenePointsKernel createKernel(FitnessTables tables) {
+        if (VECTOR_API_AVAILABLE) {
+            try {
+                //By name, so the Vector API classes are never linked when the module is missing
+                return (GenePointsKernel) Class.forName("geneticalgorithm.VectorGenePointsKernel")
+                        .getDeclaredConstructor(FitnessTables.class)
+                        .newInstance(tables);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarGenePointsKernel(tables);
+            }
+        }
+        return new ScalarGenePointsKernel(tables);
+    }
+
+    public boolean isVectorized() {
+        return !(kernel instanceof ScalarGenePointsKernel);
+    }
+
+    public void evaluate(Chromosome[] chromosomes, int from, int to) {
+        evaluate(chromosomes, from, to, null);
+    }
+
+    //Chromosomes found in the cache are not scored again; the others are scored and stored
+    public void evaluate(Chromosome[] chromosomes, int from, int to, FitnessCache cache) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            Chromosome chromosome = chromosomes[i];
+            if (cache != null) {
+                int cachedPoints = cache.lookup(chromosome.getZobristHash());
+                if (cachedPoints != FitnessCache.MISSING) {
+                    chromosome.setFitnessPoints(cachedPoints);
+                    continue;
+                }
+            }
+            batch[count++] = chromosome;
+            if (count == capacity) {
+                evaluateBatch(count, cache);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            evaluateBatch(count, cache);
+        }
+    }
+
+    private void evaluateBatch(int count, FitnessCache cache) {
+        int numberOfTimes = tables.numberOfTimes;
+        for (int c = 0; c < count; c++) {
+            int[] rooms = batch[c].rooms();
+            int[] times = batch[c].times();
+            int[] facilitators = batch[c].facilitators();
+            for (int gene = 0; gene < rooms.length; gene++) {
+                int index = gene * stride + c;
+                columns.facilitators[index] = facilitators[gene];
+                columns.roomCells[index] = gene * tables.numberOfRooms + rooms[gene];
+                columns.facilitatorCells[index] = gene * tables.numberOfFacilitators + facilitators[gene];
+                if (tables.hasTimePoints) {
+                    columns.timeCells[index] = gene * numberOfTimes + times[gene];
+                }
+                columns.roomTimeCells[index] = rooms[gene] * numberOfTimes + times[gene];
+                columns.facilitatorTimeCells[index] = facilitators[gene] * numberOfTimes + times[gene];
+            }
+        }
+
+        kernel.sumGenePoints(tables, columns, count, genePoints);
+
+        for (int c = 0; c < count; c++) {
+            Chromosome chromosome = batch[c];
+            int points = genePoints[c]
+                    + FitnessEvaluator.sectionPoints(tables, chromosome.rooms(), chromosome.times())
+                    + consecutiveFacilitatorPoints(chromosome.rooms(), chromosome.times(), chromosome.facilitators());
+            chromosome.setFitnessPoints(points);
+            if (cache != null) {
+                cache.store(chromosome.getZobristHash(), points);
+            }
+            batch[c] = null;
+        }
+    }
+
+    //The rule as FitnessState keeps it, computed from scratch: see FitnessEvaluator.lastFacilitatorInHashMapOrder
+    private int consecutiveFacilitatorPoints(int[] rooms, int[] times, int[] facilitators) {
+        int numberOfTimes = tables.numberOfTimes;
+        Arrays.fill(facilitatorLoads, 0);
+        Arrays.fill(hasConsecutivePair, false);
+        Arrays.fill(seenTimes, false);
+        int distinctFacilitators = 0;
+        for (int i = 0; i < facilitators.length; i++) {
+            if (facilitatorLoads[facilitators[i]]++ == 0) {
+                firstGenes[facilitators[i]] = i;
+                distinctFacilitators++;
+            }
+            lastGenes[facilitators[i]] = i;
+        }
+        //The reference pair search never looks at the last gene of a facilitator
+        for (int i = 0; i < facilitators.length; i++) {
+            int facilitator = facilitators[i];
+            if (i == lastGenes[facilitator]) {
+                continue;
+            }
+            for (int consecutiveTime : tables.consecutiveTimes[times[i]]) {
+                if (seenTimes[facilitator * numberOfTimes + consecutiveTime]) {
+                    hasConsecutivePair[facilitator] = true;
+                }
+            }
+            seenTimes[facilitator * numberOfTimes + times[i]] = true;
+        }
+
+        int chosenFacilitator = FitnessEvaluator.lastFacilitatorInHashMapOrder(
+                tables, hasConsecutivePair, facilitatorLoads, firstGenes, distinctFacilitators);
+        if (chosenFacilitator < 0) {
+            return 0;
+        }
+        int lastGene = lastGenes[chosenFacilitator];
+        for (int i = firstGenes[chosenFacilitator]; i < lastGene; i++) {
+            if (facilitators[i] != chosenFacilitator) {
+                continue;
+            }
+            for (int j = i + 1; j < lastGene; j++) {
+                if (facilitators[j] == chosenFacilitator
+                        && tables.timeDifferences[times[i] * numberOfTimes + times[j]] == 1) {
+                    return FitnessEvaluator.facilitatorConsecutivePoints(tables, rooms[i], rooms[j]);
+                }
+            }
+        }
+        throw new IllegalStateException("Facilitator " + chosenFacilitator + " has no consecutive pair");
+    }
+}
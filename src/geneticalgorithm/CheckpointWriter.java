@@ -0,0 +1,114 @@
+package geneticalgorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+//Writes PopulationCheckpoints of a running population on a background thread. The generation loop only pays
+//for encoding the population into a buffer; mapping, copying and forcing the file happen on the writer thread.
+//While a checkpoint is being written, newer ones wait in a single pending slot where each replaces the last,
+//so a slow disk costs intermediate checkpoints but never blocks the loop, and the newest one always lands.
+//A failed write is kept and thrown by the next checkpoint() call or by close().
+public final class CheckpointWriter implements AutoCloseable {
+
+    private final Path path;
+    private final ExecutorService executor;
+    //Guarded by this: the encoded checkpoint waiting to be written, a buffer free for reuse,
+    //and whether a drain task is queued or running
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private boolean draining;
+    private int replacedCheckpoints;
+    private volatile IOException failure;
+
+    public CheckpointWriter(Path path) {
+        this.path = path;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void checkpoint(Population population) throws IOException {
+        throwFailure();
+        int encodedSize = PopulationCheckpoint.encodedSize(population.tables(), population.size());
+        ByteBuffer buffer;
+        synchronized (this) {
+            if (pending != null) {
+                buffer = pending;
+                replacedCheckpoints++;
+            } else {
+                buffer = spare;
+            }
+            pending = null;
+            spare = null;
+        }
+        if (buffer == null || buffer.capacity() < encodedSize) {
+            buffer = ByteBuffer.allocate(encodedSize);
+        }
+        buffer.clear();
+        PopulationCheckpoint.encode(population, buffer);
+        buffer.flip();
+        synchronized (this) {
+            pending = buffer;
+            if (!draining) {
+                draining = true;
+                executor.execute(this::drain);
+            }
+        }
+    }
+
+    //Checkpoints that were replaced by a newer one before they could be written
+    public synchronized int getReplacedCheckpoints() {
+        return replacedCheckpoints;
+    }
+
+    private void drain() {
+        while (true) {
+            ByteBuffer buffer;
+            synchronized (this) {
+                buffer = pending;
+                pending = null;
+                if (buffer == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                PopulationCheckpoint.writeMapped(buffer, path);
+            } catch (IOException e) {
+                failure = e;
+            }
+            synchronized (this) {
+                spare = buffer;
+            }
+        }
+    }
+
+    //Waits for the newest checkpoint to be on disk
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                throw new IOException("Timed out writing the last checkpoint to " + path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted writing the last checkpoint to " + path, e);
+        }
+        throwFailure();
+    }
+
+    private void throwFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) {
+            failure = null;
+            throw new IOException("Writing a checkpoint to " + path + " failed", e);
+        }
+    }
+}
@@ -1,35 +1,82 @@
 package geneticalgorithm;
 
 import java.util.*;
-import java.util.stream.Stream;
 
-import records.DataListManager;
-import records.RoomRecord;
-
-//Genetic representation of a schedule
+//Genetic representation of a schedule.
+//Gene i schedules activity i of its FitnessTables (by default the course data in DataListManager); the arrays
+//hold indices into the rooms, times and facilitators of the same tables.
 public final class Chromosome implements Probability {
-    private final List<Gene> geneList;
-    private double fitness = -1;
+    private final FitnessTables tables;
+    private final int[] rooms;
+    private final int[] times;
+    private final int[] facilitators;
+    private int fitnessPoints = -100; //a fitness of -1 until evaluated, see FitnessEvaluator.POINTS_PER_UNIT
     private double matingProbability = -1; //start off with no possibility to mate
-    private final SplittableRandom random;
+    private long zobristHash; //see ZobristKeys, kept up to date by every change to the genome
+    //Occupancy tables for delta evaluation. While they are out of date, deltaBase is the parent whose tables
+    //can be reused. The tables are kept when the chromosome is recycled, so they are allocated only once.
+    private FitnessState fitnessState;
+    private boolean fitnessStateValid;
+    private Chromosome deltaBase;
+
+    public Chromosome(int[] rooms, int[] times, int[] facilitators) {
+        this(FitnessTables.DEFAULT, rooms, times, facilitators);
+    }
 
-    public Chromosome(List<Gene> geneList) {
-        this.random = new SplittableRandom();
-        this.geneList = geneList;
+    public Chromosome(FitnessTables tables, int[] rooms, int[] times, int[] facilitators) {
+        if (rooms.length != tables.numberOfActivities || times.length != rooms.length
+                || facilitators.length != rooms.length) {
+            throw new IllegalArgumentException("A genome needs one gene per activity, " + tables.numberOfActivities);
+        }
+        this.tables = tables;
+        this.rooms = rooms;
+        this.times = times;
+        this.facilitators = facilitators;
+        this.zobristHash = tables.zobristKeys.hash(rooms, times, facilitators);
     }
 
-    public void attemptMutation(double mutationRate) {
-        for (Gene gene : geneList) {
-            if (GeneticUtils.mutationOccurred(mutationRate)) {
-                gene.mutateFacilitator();
-            }
-            if (GeneticUtils.mutationOccurred(mutationRate)) {
-                gene.mutateRoom();
-            }
-            if (GeneticUtils.mutationOccurred(mutationRate)) {
-                gene.mutateTime();
-            }
+    //The new values come from the domains when given, else from all of the tables' values
+    void mutateFacilitator(int geneIndex, DomainIndex domains, SplittableRandom random) {
+        setGene(geneIndex, rooms[geneIndex], times[geneIndex], domains == null
+                ? pickDifferentIndex(facilitators[geneIndex], tables.numberOfFacilitators, random)
+                : domains.pickDifferent(FitnessRules.Target.FACILITATOR, geneIndex, facilitators[geneIndex], random));
+    }
+
+    void mutateRoom(int geneIndex, DomainIndex domains, SplittableRandom random) {
+        setGene(geneIndex, domains == null
+                ? pickDifferentIndex(rooms[geneIndex], tables.numberOfRooms, random)
+                : domains.pickDifferent(FitnessRules.Target.ROOM, geneIndex, rooms[geneIndex], random),
+                times[geneIndex], facilitators[geneIndex]);
+    }
+
+    void mutateTime(int geneIndex, DomainIndex domains, SplittableRandom random) {
+        setGene(geneIndex, rooms[geneIndex], domains == null
+                ? pickDifferentIndex(times[geneIndex], tables.numberOfTimes, random)
+                : domains.pickDifferent(FitnessRules.Target.TIME, geneIndex, times[geneIndex], random),
+                facilitators[geneIndex]);
+    }
+
+    //Reassigns a gene, re-scoring only what it touches when this chromosome already has its occupancy tables
+    void setGene(int geneIndex, int room, int time, int facilitator) {
+        int oldRoom = rooms[geneIndex];
+        int oldTime = times[geneIndex];
+        int oldFacilitator = facilitators[geneIndex];
+        rooms[geneIndex] = room;
+        times[geneIndex] = time;
+        facilitators[geneIndex] = facilitator;
+        zobristHash ^= tables.zobristKeys.geneKey(geneIndex, oldRoom, oldTime, oldFacilitator)
+                ^ tables.zobristKeys.geneKey(geneIndex, room, time, facilitator);
+        if (fitnessStateValid) {
+            fitnessState.moveGene(geneIndex, oldRoom, oldTime, oldFacilitator, room, time, facilitator);
+        }
+    }
+
+    //Uniform over every index except the current one, with a single draw
+    static int pickDifferentIndex(int currentIndex, int bound, SplittableRandom random) {
+        if (bound < 2) {
+            return currentIndex;
         }
+        return (currentIndex + 1 + random.nextInt(bound - 1)) % bound;
     }
 
     // 1 2 3 4 5 6
@@ -37,162 +84,115 @@ public final class Chromosome implements Probability {
     //
     // 1 2 3 4 e f
     // a b c d 5 6
-    public List<Chromosome> crossoverWith(Chromosome other) {
-        int indexOfDividingLine = random.nextInt(1, GeneticConstants.NUMBER_OF_GENES - 1);
-
-        List<Gene> firstHalf1 = this.splitGenes(0, indexOfDividingLine);
-        List<Gene> secondHalf1 = other.splitGenes(indexOfDividingLine, GeneticConstants.NUMBER_OF_GENES);
-        List<Gene> firstHalf2 = other.splitGenes(0, indexOfDividingLine);
-        List<Gene> secondHalf2 = this.splitGenes(indexOfDividingLine, GeneticConstants.NUMBER_OF_GENES);
-
-        Chromosome chromosome1 =
-                new Chromosome(Stream.concat(firstHalf1.stream(), secondHalf1.stream()).toList());
-        Chromosome chromosome2 =
-                new Chromosome(Stream.concat(firstHalf2.stream(), secondHalf2.stream()).toList());
-
+    public List<Chromosome> crossoverWith(Chromosome other, SplittableRandom random) {
+        Chromosome chromosome1 = new Chromosome(tables, new int[rooms.length], new int[rooms.length],
+                new int[rooms.length]);
+        Chromosome chromosome2 = new Chromosome(tables, new int[rooms.length], new int[rooms.length],
+                new int[rooms.length]);
+        crossoverInto(other, chromosome1, chromosome2, random);
         return List.of(chromosome1, chromosome2);
     }
 
-    private List<Gene> splitGenes(int start, int end) {
-        return geneList.subList(start, end)
-                .stream()
-                .map(Gene::copy)
-                .toList();
+    //Overwrites the genomes of two existing chromosomes, e.g. culled ones being recycled, without allocating
+    public void crossoverInto(Chromosome other, Chromosome child1, Chromosome child2, SplittableRandom random) {
+        int indexOfDividingLine = random.nextInt(1, rooms.length - 1);
+        boolean thisContributesMore = 2 * indexOfDividingLine >= rooms.length;
+        child1.overwriteWithSplice(this, other, indexOfDividingLine, thisContributesMore ? this : other);
+        child2.overwriteWithSplice(other, this, indexOfDividingLine, thisContributesMore ? other : this);
     }
 
-    public void attemptMutation() {
-        attemptMutation(GeneticConstants.MUTATION_RATE);
+    private void overwriteWithSplice(Chromosome head, Chromosome tail, int indexOfDividingLine, Chromosome base) {
+        splice(head.rooms, tail.rooms, rooms, indexOfDividingLine);
+        splice(head.times, tail.times, times, indexOfDividingLine);
+        splice(head.facilitators, tail.facilitators, facilitators, indexOfDividingLine);
+        //Only the genes that came from the other parent change the hash
+        if (base == head) {
+            zobristHash = head.zobristHash ^ hashDifference(head, tail, indexOfDividingLine, rooms.length);
+        } else {
+            zobristHash = tail.zobristHash ^ hashDifference(tail, head, 0, indexOfDividingLine);
+        }
+        fitnessStateValid = false;
+        deltaBase = base;
+        fitnessPoints = -100;
+        matingProbability = -1;
     }
 
-    public void calculateFitness() {
-        double fitnessScore = geneList
-                .stream()
-                .mapToDouble(gene -> GeneticUtils.calculateFitnessOfGene(gene, this))
-                .sum();
-
-        /*
-        The 2 sections of SLA 101 are more than 4 hours apart: + 0.5
-        Both sections of SLA 101 are in the same time slot: -0.5
-        The 2 sections of SLA 191 are more than 4 hours apart: + 0.5
-        Both sections of SLA 191 are in the same time slot: -0.5
-         */
-
-        //The 2 sections of SLA 101 are more than 4 hours apart: + 0.5
-        final Gene SLA100A = GeneticUtils.getGeneByName("SLA100A", this);
-        final Gene SLA100B = GeneticUtils.getGeneByName("SLA100B", this);
-        if (SLA100A.getTime().differenceBetween(SLA100B.getTime()) > 4) {
-            fitnessScore += 0.5;
-        }
+    private static long hashDifference(Chromosome chromosome, Chromosome other, int from, int to) {
+        ZobristKeys zobristKeys = chromosome.tables.zobristKeys;
+        return zobristKeys.hashRange(chromosome.rooms, chromosome.times, chromosome.facilitators, from, to)
+                ^ zobristKeys.hashRange(other.rooms, other.times, other.facilitators, from, to);
+    }
 
-        //Both sections of SLA 101 are in the same time slot: -0.5
-        else if (SLA100A.getTime().equals(SLA100B.getTime())) {
-            fitnessScore -= 0.5;
-        }
+    private static void splice(int[] head, int[] tail, int[] genes, int indexOfDividingLine) {
+        System.arraycopy(head, 0, genes, 0, indexOfDividingLine);
+        System.arraycopy(tail, indexOfDividingLine, genes, indexOfDividingLine, tail.length - indexOfDividingLine);
+    }
 
-        //The 2 sections of SLA 191 are more than 4 hours apart: + 0.5
-        Gene SLA191A = GeneticUtils.getGeneByName("SLA191A", this);
-        Gene SLA191B = GeneticUtils.getGeneByName("SLA191B", this);
-        if (SLA191A.getTime().differenceBetween(SLA191B.getTime()) > 4) {
-            fitnessScore += 0.5;
-        }
+    public void attemptMutation(SplittableRandom random) {
+        MutationEngine.DEFAULT.mutate(this, random);
+    }
 
-        //Both sections of SLA 191 are in the same time slot: -0.5
-        else if (SLA191A.getTime().equals(SLA191B.getTime())) {
-            fitnessScore -= 0.5;
-        }
+    public void calculateFitness() {
+        fitnessPoints = fitnessState().getPoints();
+    }
 
-        /*
-        A section of SLA 191 and a section of SLA 101 are overseen in consecutive time slots (e.g., 10 AM & 11 AM): +0.5
-        In this case only (consecutive time slots), one of the activities is in Roman or Beach, and the other isn’t: -0.4
-        It’s fine if neither is in one of those buildings, of activity; we just want to avoid having consecutive activities being widely separated.
-         */
-        //4 possible combos: SLA100A with SLA191A, SLA100B with SLA191A, SLA100A with SLA191B, SLA100B with SLA191B
-        final RoomRecord roman201 = DataListManager.getRoomByName("Roman 201");
-        final RoomRecord beach201 = DataListManager.getRoomByName("Beach 201");
-
-        if (SLA100A.getTime().differenceBetween(SLA191A.getTime()) == 1) {
-            fitnessScore += 0.5;
-            if (GeneticUtils.isRoomAvoidanceMet(SLA100A, SLA191A, roman201, beach201)) {
-                fitnessScore -= 0.4;
-            }
-        } else if (SLA100B.getTime().differenceBetween(SLA191A.getTime()) == 1) {
-            fitnessScore += 0.5;
-            if (GeneticUtils.isRoomAvoidanceMet(SLA100B, SLA191A, roman201, beach201)) {
-                fitnessScore -= 0.4;
-            }
-        } else if (SLA100A.getTime().differenceBetween(SLA191B.getTime()) == 1) {
-            fitnessScore += 0.5;
-            if (GeneticUtils.isRoomAvoidanceMet(SLA100A, SLA191B, roman201, beach201)) {
-                fitnessScore -= 0.4;
-            }
-        } else if (SLA100B.getTime().differenceBetween(SLA191B.getTime()) == 1) {
-            fitnessScore += 0.5;
-            if (GeneticUtils.isRoomAvoidanceMet(SLA100B, SLA191B, roman201, beach201)) {
-                fitnessScore -= 0.4;
+    //Takes the fitness from the cache when this genome has been scored before. A hit skips building the
+    //occupancy tables, which are then rebuilt in full if they are ever needed.
+    public void calculateFitness(FitnessCache cache) {
+        if (!fitnessStateValid) {
+            int cachedPoints = cache.lookup(zobristHash);
+            if (cachedPoints != FitnessCache.MISSING) {
+                setFitnessPoints(cachedPoints);
+                return;
             }
         }
+        calculateFitness();
+        cache.store(zobristHash, fitnessPoints);
+    }
 
+    //A score computed elsewhere, e.g. by BatchFitnessEvaluator. Drops the delta base: the occupancy tables are
+    //rebuilt in full if they are ever needed.
+    void setFitnessPoints(int fitnessPoints) {
+        this.fitnessPoints = fitnessPoints;
+        deltaBase = null;
+    }
 
-        //A section of SLA 191 and a section of SLA 101 are taught separated by 1 hour (e.g., 10 AM & 12:00 Noon): + 0.25
-        else if (SLA100A.getTime().differenceBetween(SLA191A.getTime()) > 1) {
-            fitnessScore += 0.25;
-        } else if (SLA100B.getTime().differenceBetween(SLA191A.getTime()) > 1) {
-            fitnessScore += 0.25;
-        } else if (SLA100A.getTime().differenceBetween(SLA191B.getTime()) > 1) {
-            fitnessScore += 0.25;
-        } else if (SLA100B.getTime().differenceBetween(SLA191B.getTime()) > 1) {
-            fitnessScore += 0.25;
-        }
+    //For a genome written straight into the arrays, e.g. by OffHeapChromosomeStore.load
+    void genomeReplaced(int fitnessPoints) {
+        zobristHash = tables.zobristKeys.hash(rooms, times, facilitators);
+        fitnessStateValid = false;
+        deltaBase = null;
+        matingProbability = -1;
+        this.fitnessPoints = fitnessPoints;
+    }
 
-        //A section of SLA 191 and a section of SLA 101 are taught in the same time slot: -0.25
-        else if (SLA100A.getTime().equals(SLA191A.getTime())) {
-            fitnessScore -= 0.25;
-        } else if (SLA100B.getTime().equals(SLA191A.getTime())) {
-            fitnessScore -= 0.25;
-        } else if (SLA100A.getTime().equals(SLA191B.getTime())) {
-            fitnessScore -= 0.25;
-        } else if (SLA100B.getTime().equals(SLA191B.getTime())) {
-            fitnessScore -= 0.25;
-        }
+    //Copies the genome and fitness only; the copy shares nothing with this chromosome
+    public Chromosome copy() {
+        Chromosome copy = new Chromosome(tables, rooms.clone(), times.clone(), facilitators.clone());
+        copy.fitnessPoints = fitnessPoints;
+        return copy;
+    }
 
-        //If any facilitator scheduled for consecutive time slots: Same rules as for SLA 191 and SLA 101 in consecutive time slots—see below.
-        Map<String, List<Gene>> facilitatorToActivityMap = new HashMap<>();
-        for (Gene gene : geneList) {
-            if (!facilitatorToActivityMap.containsKey(gene.getFacilitator())) {
-                facilitatorToActivityMap.put(gene.getFacilitator(), new ArrayList<>(List.of(gene)));
+    //Brings the occupancy tables up to date, from the delta base's tables when the base has valid ones
+    FitnessState fitnessState() {
+        if (!fitnessStateValid) {
+            if (fitnessState == null) {
+                fitnessState = new FitnessState(tables, rooms, times, facilitators);
+            } else if (deltaBase != null && deltaBase.fitnessStateValid) {
+                fitnessState.deriveFrom(deltaBase.fitnessState);
             } else {
-                List<Gene> genes = facilitatorToActivityMap.get(gene.getFacilitator());
-                genes.add(gene);
-                facilitatorToActivityMap.put(gene.getFacilitator(), genes);
+                fitnessState.recalculate();
             }
+            fitnessStateValid = true;
+            deltaBase = null;
         }
-        List<Gene> consecutiveGenes = Collections.emptyList();
-
-        for (var entry : facilitatorToActivityMap.entrySet()) {
-            for (int i = 0; i < entry.getValue().size(); i++) {
-                if (GeneticUtils.areAnyTimesConsecutive(entry.getValue())) {
-                    consecutiveGenes = GeneticUtils.getConsecutiveTimes(entry.getValue());
-                }
-            }
-        }
-
-        if (!consecutiveGenes.isEmpty()) {
-            fitnessScore += 0.5;
-            if (GeneticUtils.isRoomAvoidanceMet(
-                    consecutiveGenes.get(0),
-                    consecutiveGenes.get(1),
-                    roman201,
-                    beach201)) {
-                fitnessScore -= 0.4;
-            }
-        }
-        fitness = fitnessScore;
+        return fitnessState;
     }
 
     @Override
     public String toString() {
         return "Chromosome{" +
-                "geneList=" + geneList +
+                "geneList=" + geneList() +
                 '}';
     }
 
@@ -201,7 +201,7 @@ public final class Chromosome implements Probability {
         stringBuilder
                 .append("Schedule = {")
                 .append("\n");
-        for (Gene gene : geneList) {
+        for (Gene gene : geneList()) {
             stringBuilder.append("\t").append(gene.toPrettyString()).append("\n");
         }
 
@@ -210,16 +210,55 @@ public final class Chromosome implements Probability {
         return stringBuilder.toString();
     }
 
+    //Builds read-only views of the genes, e.g. for printing. Each call creates new views.
     public List<Gene> geneList() {
+        List<Gene> geneList = new ArrayList<>(rooms.length);
+        for (int i = 0; i < rooms.length; i++) {
+            geneList.add(getGene(i));
+        }
         return geneList;
     }
 
+    public Gene getGene(int geneIndex) {
+        return new Gene(
+                tables.activities.get(geneIndex),
+                tables.rooms.get(rooms[geneIndex]),
+                tables.times.get(times[geneIndex]),
+                tables.facilitators.get(facilitators[geneIndex])
+        );
+    }
+
+    FitnessTables tables() {
+        return tables;
+    }
+
+    int[] rooms() {
+        return rooms;
+    }
+
+    int[] times() {
+        return times;
+    }
+
+    int[] facilitators() {
+        return facilitators;
+    }
+
     public void setMatingProbability(double matingProbability) {
         this.matingProbability = matingProbability;
     }
 
     public double getFitness() {
-        return fitness;
+        return fitnessPoints / FitnessEvaluator.POINTS_PER_UNIT;
+    }
+
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    //Fitness in exact hundredths
+    public int getFitnessPoints() {
+        return fitnessPoints;
     }
 
     @Override
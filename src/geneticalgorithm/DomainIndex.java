@@ -0,0 +1,200 @@
+package geneticalgorithm;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import records.ActivityRecord;
+
+/*
+Per activity, the rooms, times and facilitators worth drawing, built once from an instance's FitnessTables.
+A value is kept when
+Room: it seats the expected enrollment and has at most maxCapacityRatio times as many seats.
+Time: its static points (extra time rules) are at least minimumTimePoints.
+Facilitator: it is on the activity's preferred or other list, unless listedFacilitatorsOnly is off.
+A domain that keeps fewer than minimumDomainSize values is topped up with the best of the values it dropped, so
+every activity still has a schedule and room to move. Each domain is ordered by static points, best first, ties
+by index.
+Initialization (GeneticUtils.createRandomChromosome) and mutation (MutationEngine) draw from the domains when a
+Population has one, see Population.setDomainIndex. Dropped values are just never drawn: crossover and migrants
+can still bring them in, and they are scored as before.
+Immutable, so populations and threads may share one.
+ */
+public final class DomainIndex {
+
+    public record Thresholds(int maxCapacityRatio, int minimumTimePoints, boolean listedFacilitatorsOnly,
+                             int minimumDomainSize) {
+
+        public static final Thresholds DEFAULT = new Thresholds(GeneticConstants.DOMAIN_MAX_CAPACITY_RATIO,
+                GeneticConstants.DOMAIN_MIN_TIME_POINTS, GeneticConstants.DOMAIN_LISTED_FACILITATORS_ONLY,
+                GeneticConstants.DOMAIN_MIN_SIZE);
+
+        public Thresholds {
+            if (maxCapacityRatio < 1 || minimumDomainSize < 1) {
+                throw new IllegalArgumentException("Need a capacity ratio of at least 1 and domains of at least 1");
+            }
+        }
+    }
+
+    private final FitnessTables tables;
+    private final Thresholds thresholds;
+    //[target][activity], the values of the domain, best first
+    private final int[][][] domains;
+    //[target][activity * bound + value], the value's place in its domain or -1 when pruned
+    private final int[][] positions;
+
+    public DomainIndex(FitnessTables tables) {
+        this(tables, Thresholds.DEFAULT);
+    }
+
+    public DomainIndex(FitnessTables tables, Thresholds thresholds) {
+        this.tables = tables;
+        this.thresholds = thresholds;
+        FitnessRules.Target[] targets = FitnessRules.Target.values();
+        domains = new int[targets.length][tables.numberOfActivities][];
+        positions = new int[targets.length][];
+        for (FitnessRules.Target target : targets) {
+            int bound = bound(target);
+            int[] targetPositions = new int[tables.numberOfActivities * bound];
+            Arrays.fill(targetPositions, -1);
+            for (int activity = 0; activity < tables.numberOfActivities; activity++) {
+                int[] domain = buildDomain(target, activity);
+                for (int position = 0; position < domain.length; position++) {
+                    targetPositions[activity * bound + domain[position]] = position;
+                }
+                domains[target.ordinal()][activity] = domain;
+            }
+            positions[target.ordinal()] = targetPositions;
+        }
+    }
+
+    private int[] buildDomain(FitnessRules.Target target, int activity) {
+        int bound = bound(target);
+        //Highest points first, then lowest index
+        long[] keys = new long[bound];
+        for (int value = 0; value < bound; value++) {
+            keys[value] = ((long) -staticPoints(target, activity, value) << 32) + value;
+        }
+        Arrays.sort(keys);
+        int[] byScore = new int[bound];
+        for (int i = 0; i < bound; i++) {
+            byScore[i] = (int) keys[i];
+        }
+
+        int[] domain = new int[bound];
+        boolean[] kept = new boolean[bound];
+        int size = 0;
+        for (int value : byScore) {
+            if (keeps(target, activity, value)) {
+                kept[value] = true;
+                domain[size++] = value;
+            }
+        }
+        int minimumSize = Math.min(thresholds.minimumDomainSize(), bound);
+        if (size < minimumSize) {
+            for (int value : byScore) {
+                if (size == minimumSize) {
+                    break;
+                }
+                if (!kept[value]) {
+                    kept[value] = true;
+                    size++;
+                }
+            }
+            //Again in score order, now with the topped up values
+            size = 0;
+            for (int value : byScore) {
+                if (kept[value]) {
+                    domain[size++] = value;
+                }
+            }
+        }
+        return Arrays.copyOf(domain, size);
+    }
+
+    private boolean keeps(FitnessRules.Target target, int activity, int value) {
+        ActivityRecord record = tables.activities.get(activity);
+        return switch (target) {
+            case ROOM -> {
+                int capacity = tables.rooms.get(value).capacity();
+                yield capacity >= record.expectedEnrollment()
+                        && capacity <= (long) thresholds.maxCapacityRatio() * record.expectedEnrollment();
+            }
+            case TIME -> tables.timePoints[activity * tables.numberOfTimes + value] >= thresholds.minimumTimePoints();
+            case FACILITATOR -> {
+                String facilitator = tables.facilitators.get(value);
+                yield !thresholds.listedFacilitatorsOnly() || record.preferredFacilitators().contains(facilitator)
+                        || record.otherFacilitators().contains(facilitator);
+            }
+        };
+    }
+
+    private int bound(FitnessRules.Target target) {
+        return switch (target) {
+            case ROOM -> tables.numberOfRooms;
+            case TIME -> tables.numberOfTimes;
+            case FACILITATOR -> tables.numberOfFacilitators;
+        };
+    }
+
+    //Points the value scores for the activity whatever the rest of the schedule, see FitnessTables
+    public int staticPoints(FitnessRules.Target target, int activity, int value) {
+        return switch (target) {
+            case ROOM -> tables.roomPoints[activity * tables.numberOfRooms + value];
+            case TIME -> tables.timePoints[activity * tables.numberOfTimes + value];
+            case FACILITATOR -> tables.facilitatorPoints[activity * tables.numberOfFacilitators + value];
+        };
+    }
+
+    public FitnessTables tables() {
+        return tables;
+    }
+
+    public Thresholds getThresholds() {
+        return thresholds;
+    }
+
+    //The activity's domain, best static points first
+    public int[] getDomain(FitnessRules.Target target, int activity) {
+        return domains[target.ordinal()][activity].clone();
+    }
+
+    public int getDomainSize(FitnessRules.Target target, int activity) {
+        return domains[target.ordinal()][activity].length;
+    }
+
+    public boolean contains(FitnessRules.Target target, int activity, int value) {
+        return positions[target.ordinal()][activity * bound(target) + value] >= 0;
+    }
+
+    //Base 10 logarithm of the number of schedules the domains allow
+    public double log10SearchSpace() {
+        double log10 = 0;
+        for (int activity = 0; activity < tables.numberOfActivities; activity++) {
+            for (FitnessRules.Target target : FitnessRules.Target.values()) {
+                log10 += Math.log10(getDomainSize(target, activity));
+            }
+        }
+        return log10;
+    }
+
+    //The same for the unpruned instance
+    public double log10FullSearchSpace() {
+        return tables.numberOfActivities * (Math.log10(tables.numberOfRooms) + Math.log10(tables.numberOfTimes)
+                + Math.log10(tables.numberOfFacilitators));
+    }
+
+    int pick(FitnessRules.Target target, int activity, SplittableRandom random) {
+        int[] domain = domains[target.ordinal()][activity];
+        return domain[random.nextInt(domain.length)];
+    }
+
+    //A value of the domain other than the current one, uniformly; any value of it when the current one was pruned
+    int pickDifferent(FitnessRules.Target target, int activity, int current, SplittableRandom random) {
+        int[] domain = domains[target.ordinal()][activity];
+        int position = positions[target.ordinal()][activity * bound(target) + current];
+        if (position < 0) {
+            return domain[random.nextInt(domain.length)];
+        }
+        return domain[Chromosome.pickDifferentIndex(position, domain.length, random)];
+    }
+}
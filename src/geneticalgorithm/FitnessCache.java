@@ -0,0 +1,89 @@
+package geneticalgorithm;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Bounded fitness memo keyed by a chromosome's Zobrist hash. Direct mapped: a new entry evicts whatever shares
+//its slot. Lock-free: a slot stores the fitness and the hash XOR the fitness, so a reader that sees halves of
+//two different writes gets a mismatch and treats it as a miss. Two genomes with the same 64-bit hash would
+//share an entry; at the sizes involved that chance is negligible and is accepted, as for any Zobrist table.
+public final class FitnessCache {
+
+    //Returned by lookup when the hash is not cached; no schedule scores this low
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private final AtomicLongArray entries;
+    private final int slotMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    //The capacity is rounded up to a power of two
+    public FitnessCache(int capacity) {
+        if (capacity < 1 || capacity > 1 << 29) {
+            throw new IllegalArgumentException("The capacity must be between 1 and 2^29, was " + capacity);
+        }
+        int slots = Integer.highestOneBit(capacity - 1) << 1;
+        slots = Math.max(1, slots);
+        entries = new AtomicLongArray(2 * slots);
+        slotMask = slots - 1;
+        //An all-zero slot would read as hash 0 with 0 points
+        for (int slot = 0; slot < slots; slot++) {
+            entries.setPlain(2 * slot, MISSING);
+            entries.setPlain(2 * slot + 1, MISSING);
+        }
+    }
+
+    public FitnessCache() {
+        this(GeneticConstants.FITNESS_CACHE_CAPACITY);
+    }
+
+    //Fitness points of the hash, or MISSING
+    public int lookup(long hash) {
+        int index = slotOf(hash);
+        long points = entries.getOpaque(index);
+        long check = entries.getOpaque(index + 1);
+        if ((check ^ points) == hash && points != MISSING) {
+            hits.increment();
+            return (int) points;
+        }
+        misses.increment();
+        return MISSING;
+    }
+
+    public void store(long hash, int points) {
+        int index = slotOf(hash);
+        entries.setOpaque(index, points);
+        entries.setOpaque(index + 1, hash ^ points);
+    }
+
+    private int slotOf(long hash) {
+        return 2 * ((int) (hash ^ (hash >>> 32)) & slotMask);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+
+    public int getCapacity() {
+        return slotMask + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "FitnessCache{" +
+                "capacity=" + getCapacity() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", hitRate=" + getHitRate() +
+                '}';
+    }
+}
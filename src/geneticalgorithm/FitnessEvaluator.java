@@ -0,0 +1,173 @@
+package geneticalgorithm;
+
+//Scores a chromosome in one pass over its genes. The pass fills room x time and facilitator x time occupancy
+//tables plus per facilitator load counters (see FitnessState), and every rule is then read from those tables.
+//Gives the same scores as GeneticUtils.calculateReferenceFitness without its pairwise scans.
+public final class FitnessEvaluator {
+
+    //Every rule weight is a whole number of hundredths, so scores are summed exactly as ints
+    public static final double POINTS_PER_UNIT = 100.0;
+
+    private FitnessEvaluator() {
+    }
+
+    public static double evaluate(Chromosome chromosome) {
+        return evaluatePoints(chromosome.tables(), chromosome.rooms(), chromosome.times(), chromosome.facilitators())
+                / POINTS_PER_UNIT;
+    }
+
+    static int evaluatePoints(FitnessTables tables, int[] rooms, int[] times, int[] facilitators) {
+        return new FitnessState(tables, rooms, times, facilitators).getPoints();
+    }
+
+    //What-if: the change in fitness if the gene were given these indices. The chromosome is left unchanged.
+    public static double fitnessDeltaOf(Chromosome chromosome, int geneIndex, int room, int time, int facilitator) {
+        return chromosome.fitnessState().pointsDeltaOf(geneIndex, room, time, facilitator) / POINTS_PER_UNIT;
+    }
+
+    //Activity is scheduled at the same time in the same room as another of the activities: -0.5 each
+    static int roomClashPoints(FitnessTables tables, int activitiesInRoomTimeSlot) {
+        return activitiesInRoomTimeSlot > 1 ? tables.roomClashPoints * activitiesInRoomTimeSlot : 0;
+    }
+
+    //Activity facilitator is scheduled for only 1 activity in this time slot: + 0.2
+    //Activity facilitator is scheduled for more than one activity at the same time: - 0.2 each
+    static int facilitatorSlotPoints(FitnessTables tables, int activitiesInFacilitatorTimeSlot) {
+        return activitiesInFacilitatorTimeSlot == 1 ? tables.singleSlotPoints
+                : tables.doubleBookedPoints * activitiesInFacilitatorTimeSlot;
+    }
+
+    //Facilitator is scheduled to oversee more than 4 activities total: -0.5 each
+    //Facilitator is scheduled to oversee 1 or 2 activities: -0.4 each, except Dr. Tyler
+    static int facilitatorLoadPoints(FitnessTables tables, int facilitator, int load) {
+        if (load > tables.maxLoad) {
+            return tables.overloadPoints * load;
+        }
+        if (load < tables.minLoad) {
+            return tables.lowLoadPoints[facilitator] * load;
+        }
+        return 0;
+    }
+
+    //The SLA 100 / SLA 191 section rules, in the same order as the reference if/else chain, for every section group
+    static int sectionPoints(FitnessTables tables, int[] rooms, int[] times) {
+        return sectionPoints(tables, rooms, times, null);
+    }
+
+    //As above, also counting in hits, by FitnessRules.Weight ordinal, every section rule that applied
+    static int sectionPoints(FitnessTables tables, int[] rooms, int[] times, long[] hits) {
+        int points = 0;
+        int[] sectionActivities = tables.sectionActivities;
+        for (int group = 0; group < sectionActivities.length; group += 4) {
+            points += sectionGroupPoints(tables, rooms, times, sectionActivities[group], sectionActivities[group + 1],
+                    sectionActivities[group + 2], sectionActivities[group + 3], hits);
+        }
+        return points;
+    }
+
+    private static int sectionGroupPoints(FitnessTables tables, int[] rooms, int[] times, int sla100A, int sla100B,
+                                          int sla191A, int sla191B, long[] hits) {
+        int sla100ATime = times[sla100A];
+        int sla100BTime = times[sla100B];
+        int sla191ATime = times[sla191A];
+        int sla191BTime = times[sla191B];
+        int points = sectionSpacingPoints(tables, sla100ATime, sla100BTime, hits)
+                + sectionSpacingPoints(tables, sla191ATime, sla191BTime, hits);
+
+        int numberOfTimes = tables.numberOfTimes;
+        int[] timeDifferences = tables.timeDifferences;
+        int difference1 = timeDifferences[sla100ATime * numberOfTimes + sla191ATime];
+        int difference2 = timeDifferences[sla100BTime * numberOfTimes + sla191ATime];
+        int difference3 = timeDifferences[sla100ATime * numberOfTimes + sla191BTime];
+        int difference4 = timeDifferences[sla100BTime * numberOfTimes + sla191BTime];
+
+        if (difference1 == 1) {
+            return points + linkedConsecutivePoints(tables, rooms[sla100A], rooms[sla191A], hits);
+        } else if (difference2 == 1) {
+            return points + linkedConsecutivePoints(tables, rooms[sla100B], rooms[sla191A], hits);
+        } else if (difference3 == 1) {
+            return points + linkedConsecutivePoints(tables, rooms[sla100A], rooms[sla191B], hits);
+        } else if (difference4 == 1) {
+            return points + linkedConsecutivePoints(tables, rooms[sla100B], rooms[sla191B], hits);
+        } else if (difference1 > 1 || difference2 > 1 || difference3 > 1 || difference4 > 1) {
+            count(hits, FitnessRules.Weight.LINKED_SEPARATED);
+            return points + tables.linkedSeparatedPoints;
+        } else if (sla100ATime == sla191ATime || sla100BTime == sla191ATime
+                || sla100ATime == sla191BTime || sla100BTime == sla191BTime) {
+            count(hits, FitnessRules.Weight.LINKED_SAME_TIME);
+            return points + tables.linkedSameTimePoints;
+        }
+        return points;
+    }
+
+    private static int sectionSpacingPoints(FitnessTables tables, int time1, int time2, long[] hits) {
+        if (tables.timeDifferences[time1 * tables.numberOfTimes + time2] > tables.farApartHours) {
+            count(hits, FitnessRules.Weight.SECTIONS_FAR_APART);
+            return tables.sectionsFarApartPoints;
+        }
+        if (time1 == time2) {
+            count(hits, FitnessRules.Weight.SECTIONS_SAME_TIME);
+            return tables.sectionsSameTimePoints;
+        }
+        return 0;
+    }
+
+    private static int linkedConsecutivePoints(FitnessTables tables, int room1, int room2, long[] hits) {
+        count(hits, FitnessRules.Weight.LINKED_CONSECUTIVE);
+        if (tables.avoidanceRooms[room1] != tables.avoidanceRooms[room2]) {
+            count(hits, FitnessRules.Weight.CONSECUTIVE_ROOM_AVOIDANCE);
+        }
+        return consecutivePairPoints(tables, tables.linkedConsecutivePoints, room1, room2);
+    }
+
+    private static void count(long[] hits, FitnessRules.Weight weight) {
+        if (hits != null) {
+            hits[weight.ordinal()]++;
+        }
+    }
+
+    //Consecutive time slots: +0.5, and -0.4 if only one of the two is in Roman 201 or Beach 201.
+    //consecutivePoints is the linked section or the facilitator weight of the rule.
+    static int consecutivePairPoints(FitnessTables tables, int consecutivePoints, int room1, int room2) {
+        return tables.avoidanceRooms[room1] != tables.avoidanceRooms[room2]
+                ? consecutivePoints + tables.roomAvoidancePoints : consecutivePoints;
+    }
+
+    //The consecutive facilitator rule for the pair FitnessState and BatchFitnessEvaluator find
+    static int facilitatorConsecutivePoints(FitnessTables tables, int room1, int room2) {
+        return consecutivePairPoints(tables, tables.facilitatorConsecutivePoints, room1, room2);
+    }
+
+    /*
+    If any facilitator is scheduled for consecutive time slots the SLA 191 / SLA 101 consecutive rules apply once.
+    The reference groups genes per facilitator in a HashMap and keeps the pair of the last group, in iteration
+    order, that has one; its pair search also never looks at the last gene of a group. Both quirks are kept.
+     */
+    static int lastFacilitatorInHashMapOrder(FitnessTables tables, boolean[] hasConsecutivePair,
+                                             int[] facilitatorLoads, int[] firstGenes, int distinctFacilitators) {
+        int bucketMask = hashMapTableSize(distinctFacilitators) - 1;
+        int chosenFacilitator = -1;
+        int chosenBucket = -1;
+        for (int facilitator = 0; facilitator < hasConsecutivePair.length; facilitator++) {
+            if (!hasConsecutivePair[facilitator] || facilitatorLoads[facilitator] == 0) {
+                continue;
+            }
+            //Iteration order of a HashMap<String, ?>: by bucket, then by insertion order within a bucket
+            int bucket = tables.facilitatorHashes[facilitator] & bucketMask;
+            if (bucket > chosenBucket
+                    || bucket == chosenBucket && firstGenes[facilitator] > firstGenes[chosenFacilitator]) {
+                chosenFacilitator = facilitator;
+                chosenBucket = bucket;
+            }
+        }
+        return chosenFacilitator;
+    }
+
+    private static int hashMapTableSize(int numberOfKeys) {
+        int tableSize = 16;
+        while (numberOfKeys > tableSize * 3 / 4) {
+            tableSize *= 2;
+        }
+        return tableSize;
+    }
+}
@@ -0,0 +1,271 @@
+package geneticalgorithm;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import records.ActivityRecord;
+
+/*
+The fitness rules as data: a weight for every rule of the assignment, the limits they test against, and any
+number of extra per-gene rules. FitnessTables compiles them, so the evaluators and kernels still make their one
+pass over a genome and read every weight from the tables:
+Per-gene rules (room size, facilitator preference, extra rules) are summed into the static per-gene tables, so an
+extra rule costs nothing per evaluation.
+Pairwise rules (room clash, facilitator slot) are read from the room x time and facilitator x time counts.
+Per-facilitator rules (load) are read from the load counts.
+Section-pair rules (linked sections, consecutive facilitator slots) are read from the section groups.
+
+A rules file is a properties file. Weights are in fitness units and must be whole hundredths, e.g.
+    room.clash=-0.5
+    facilitator.maxLoad=4
+Extra per-gene rules have a name, a weight, an activity name pattern (* matches any run of characters, default *)
+and exactly one of a room name, a time (e.g. 8AM) or a facilitator:
+    gene.noEarlyClasses.weight=-0.1
+    gene.noEarlyClasses.time=8AM
+Keys that are left out keep the assignment's value.
+ */
+public final class FitnessRules {
+
+    public enum Kind {
+        GENE,
+        PAIRWISE,
+        FACILITATOR,
+        SECTION_PAIR
+    }
+
+    public enum Weight {
+        ROOM_TOO_SMALL("room.tooSmall", Kind.GENE, -50),
+        ROOM_OVER_LARGE_RATIO("room.overLargeRatio", Kind.GENE, -20),
+        ROOM_OVER_VERY_LARGE_RATIO("room.overVeryLargeRatio", Kind.GENE, -40),
+        ROOM_FITS("room.fits", Kind.GENE, 30),
+        PREFERRED_FACILITATOR("facilitator.preferred", Kind.GENE, 50),
+        OTHER_FACILITATOR("facilitator.other", Kind.GENE, 20),
+        UNLISTED_FACILITATOR("facilitator.unlisted", Kind.GENE, -10),
+        //Per gene in the cell
+        ROOM_CLASH("room.clash", Kind.PAIRWISE, -50),
+        FACILITATOR_SINGLE_SLOT("facilitator.singleSlot", Kind.PAIRWISE, 20),
+        FACILITATOR_DOUBLE_BOOKED("facilitator.doubleBooked", Kind.PAIRWISE, -20),
+        //Per gene of the facilitator
+        FACILITATOR_OVERLOAD("facilitator.overload", Kind.FACILITATOR, -50),
+        FACILITATOR_UNDERLOAD("facilitator.underload", Kind.FACILITATOR, -40),
+        SECTIONS_FAR_APART("sections.farApart", Kind.SECTION_PAIR, 50),
+        SECTIONS_SAME_TIME("sections.sameTime", Kind.SECTION_PAIR, -50),
+        LINKED_CONSECUTIVE("linked.consecutive", Kind.SECTION_PAIR, 50),
+        LINKED_SEPARATED("linked.separated", Kind.SECTION_PAIR, 25),
+        LINKED_SAME_TIME("linked.sameTime", Kind.SECTION_PAIR, -25),
+        FACILITATOR_CONSECUTIVE("facilitator.consecutive", Kind.SECTION_PAIR, 50),
+        //Added to either consecutive rule when only one of the two rooms is an avoidance room
+        CONSECUTIVE_ROOM_AVOIDANCE("consecutive.roomAvoidance", Kind.SECTION_PAIR, -40);
+
+        private final String key;
+        private final Kind kind;
+        private final int defaultPoints;
+
+        Weight(String key, Kind kind, int defaultPoints) {
+            this.key = key;
+            this.kind = kind;
+            this.defaultPoints = defaultPoints;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+    }
+
+    public enum Limit {
+        //A room over this many times the enrollment is too large, and over the very large ratio even more so
+        ROOM_LARGE_RATIO("room.largeRatio", 3),
+        ROOM_VERY_LARGE_RATIO("room.veryLargeRatio", 6),
+        //Loads above the maximum and below the minimum are penalized
+        FACILITATOR_MAX_LOAD("facilitator.maxLoad", 4),
+        FACILITATOR_MIN_LOAD("facilitator.minLoad", 3),
+        //Sections more than this many hours apart
+        SECTIONS_FAR_APART_HOURS("sections.farApartHours", 4);
+
+        private final String key;
+        private final int defaultValue;
+
+        Limit(String key, int defaultValue) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    public enum Target {
+        ROOM,
+        TIME,
+        FACILITATOR
+    }
+
+    //An extra per-gene rule: points for every gene of a matching activity assigned the value.
+    //The value is a room name, a time as TimeRecord.toPrettyString() gives it, or a facilitator.
+    public record GeneRule(String name, String activityPattern, Target target, String value, int points) {
+
+        boolean matches(ActivityRecord activity) {
+            return activity.name().matches(("\\Q" + activityPattern + "\\E").replace("*", "\\E.*\\Q"));
+        }
+    }
+
+    public static final FitnessRules DEFAULT = new FitnessRules(new EnumMap<>(Weight.class),
+            new EnumMap<>(Limit.class), List.of());
+
+    private final int[] points;
+    private final int[] limits;
+    private final List<GeneRule> geneRules;
+
+    private FitnessRules(Map<Weight, Integer> weights, Map<Limit, Integer> limits, List<GeneRule> geneRules) {
+        points = new int[Weight.values().length];
+        for (Weight weight : Weight.values()) {
+            points[weight.ordinal()] = weights.getOrDefault(weight, weight.defaultPoints);
+        }
+        this.limits = new int[Limit.values().length];
+        for (Limit limit : Limit.values()) {
+            this.limits[limit.ordinal()] = limits.getOrDefault(limit, limit.defaultValue);
+        }
+        this.geneRules = List.copyOf(geneRules);
+    }
+
+    public static FitnessRules load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        try {
+            return fromProperties(properties);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static FitnessRules fromProperties(Properties properties) {
+        Map<Weight, Integer> weights = new EnumMap<>(Weight.class);
+        Map<Limit, Integer> limits = new EnumMap<>(Limit.class);
+        TreeSet<String> unknownKeys = new TreeSet<>(properties.stringPropertyNames());
+        for (Weight weight : Weight.values()) {
+            String value = properties.getProperty(weight.key);
+            if (value != null) {
+                weights.put(weight, toPoints(weight.key, value));
+                unknownKeys.remove(weight.key);
+            }
+        }
+        for (Limit limit : Limit.values()) {
+            String value = properties.getProperty(limit.key);
+            if (value != null) {
+                limits.put(limit, Integer.parseInt(value.trim()));
+                unknownKeys.remove(limit.key);
+            }
+        }
+
+        TreeSet<String> ruleNames = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("gene.") && key.lastIndexOf('.') > "gene.".length()) {
+                ruleNames.add(key.substring("gene.".length(), key.lastIndexOf('.')));
+            }
+        }
+        List<GeneRule> geneRules = new ArrayList<>();
+        for (String name : ruleNames) {
+            String prefix = "gene." + name + ".";
+            String weight = properties.getProperty(prefix + "weight");
+            if (weight == null) {
+                throw new IllegalArgumentException("Gene rule " + name + " has no weight");
+            }
+            Target target = null;
+            String value = null;
+            for (Target candidate : Target.values()) {
+                String candidateValue = properties.getProperty(prefix + candidate.name().toLowerCase());
+                if (candidateValue != null) {
+                    if (target != null) {
+                        throw new IllegalArgumentException("Gene rule " + name + " names more than one of room, "
+                                + "time and facilitator");
+                    }
+                    target = candidate;
+                    value = candidateValue.trim();
+                }
+                unknownKeys.remove(prefix + candidate.name().toLowerCase());
+            }
+            if (target == null) {
+                throw new IllegalArgumentException("Gene rule " + name + " names none of room, time and facilitator");
+            }
+            geneRules.add(new GeneRule(name, properties.getProperty(prefix + "activity", "*").trim(), target, value,
+                    toPoints(prefix + "weight", weight)));
+            unknownKeys.remove(prefix + "weight");
+            unknownKeys.remove(prefix + "activity");
+        }
+        if (!unknownKeys.isEmpty()) {
+            throw new IllegalArgumentException("Unknown rule keys " + unknownKeys);
+        }
+        return new FitnessRules(weights, limits, geneRules);
+    }
+
+    private static int toPoints(String key, String value) {
+        double units = Double.parseDouble(value.trim());
+        double points = units * FitnessEvaluator.POINTS_PER_UNIT;
+        if (Math.abs(points - Math.rint(points)) > 1e-9) {
+            throw new IllegalArgumentException(key + " must be a whole number of hundredths, was " + value);
+        }
+        return (int) Math.rint(points);
+    }
+
+    public int points(Weight weight) {
+        return points[weight.ordinal()];
+    }
+
+    public int limit(Limit limit) {
+        return limits[limit.ordinal()];
+    }
+
+    public List<GeneRule> getGeneRules() {
+        return geneRules;
+    }
+
+    /*
+    Room size:
+    Activities is in a room too small for its expected enrollment: -0.5
+    Activities is in a room with capacity > 3 times expected enrollment: -0.2
+    Activities is in a room with capacity > 6 times expected enrollment: -0.4
+    Otherwise + 0.3
+     */
+    Weight roomSizeRule(int expectedEnrollment, int capacity) {
+        if (expectedEnrollment > capacity) {
+            return Weight.ROOM_TOO_SMALL;
+        }
+        if (capacity > limit(Limit.ROOM_VERY_LARGE_RATIO) * expectedEnrollment) {
+            return Weight.ROOM_OVER_VERY_LARGE_RATIO;
+        }
+        if (capacity > limit(Limit.ROOM_LARGE_RATIO) * expectedEnrollment) {
+            return Weight.ROOM_OVER_LARGE_RATIO;
+        }
+        return Weight.ROOM_FITS;
+    }
+
+    /*
+    Activities are overseen by a preferred facilitator: + 0.5
+    Activities is overseen by another facilitator listed for that activity: +0.2
+    Activities is overseen by some other facilitator: -0.1
+     */
+    Weight preferenceRule(ActivityRecord activity, String facilitator) {
+        if (activity.preferredFacilitators().contains(facilitator)) {
+            return Weight.PREFERRED_FACILITATOR;
+        }
+        if (activity.otherFacilitators().contains(facilitator)) {
+            return Weight.OTHER_FACILITATOR;
+        }
+        return Weight.UNLISTED_FACILITATOR;
+    }
+}
@@ -0,0 +1,280 @@
+package geneticalgorithm;
+
+import java.util.Arrays;
+
+//Occupancy tables and rule totals of one chromosome's genome. A gene change is applied as a remove followed by
+//an add, so only the table cells and rule terms that gene touches are re-scored.
+final class FitnessState {
+    private final FitnessTables tables;
+    private final int numberOfTimes;
+
+    //The genome this state describes; owned by the chromosome and only read here
+    private final int[] rooms;
+    private final int[] times;
+    private final int[] facilitators;
+
+    private final int[] roomTimeCounts;
+    private final int[] facilitatorTimeCounts;
+    private final int[] facilitatorLoads;
+    private int distinctFacilitators;
+    //Sum of every per-gene rule: room clash, room size, preference, extra gene rules, facilitator slot and load
+    private int genePoints;
+
+    //Consecutive facilitator rule, refreshed lazily for the facilitators whose genes changed
+    private final int[] firstGenes;
+    private final int[] lastGenes;
+    private final boolean[] hasConsecutivePair;
+    private final boolean[] staleFacilitators;
+    private final boolean[] seenTimes;
+    private final int[] laterTimeCounts;
+    private boolean consecutivePairStale;
+    private int consecutiveFirstGene;
+    private int consecutiveSecondGene;
+
+    FitnessState(FitnessTables tables, int[] rooms, int[] times, int[] facilitators) {
+        this.tables = tables;
+        this.numberOfTimes = tables.numberOfTimes;
+        this.rooms = rooms;
+        this.times = times;
+        this.facilitators = facilitators;
+        int numberOfFacilitators = tables.numberOfFacilitators;
+        roomTimeCounts = new int[tables.numberOfRooms * numberOfTimes];
+        facilitatorTimeCounts = new int[numberOfFacilitators * numberOfTimes];
+        facilitatorLoads = new int[numberOfFacilitators];
+        firstGenes = new int[numberOfFacilitators];
+        lastGenes = new int[numberOfFacilitators];
+        hasConsecutivePair = new boolean[numberOfFacilitators];
+        staleFacilitators = new boolean[numberOfFacilitators];
+        seenTimes = new boolean[numberOfFacilitators * numberOfTimes];
+        laterTimeCounts = new int[numberOfTimes];
+
+        recalculate();
+    }
+
+    //Rebuilds every table from the genome, e.g. after the genome was overwritten in place
+    void recalculate() {
+        Arrays.fill(roomTimeCounts, 0);
+        Arrays.fill(facilitatorTimeCounts, 0);
+        Arrays.fill(facilitatorLoads, 0);
+        distinctFacilitators = 0;
+        genePoints = 0;
+        for (int i = 0; i < rooms.length; i++) {
+            addGene(i, rooms[i], times[i], facilitators[i]);
+        }
+        Arrays.fill(staleFacilitators, true);
+        consecutivePairStale = true;
+    }
+
+    //Takes over the tables of base, then re-scores only the genes where this genome differs from base's genome.
+    //Both states must describe genomes of the same tables; nothing is allocated.
+    void deriveFrom(FitnessState base) {
+        System.arraycopy(base.roomTimeCounts, 0, roomTimeCounts, 0, roomTimeCounts.length);
+        System.arraycopy(base.facilitatorTimeCounts, 0, facilitatorTimeCounts, 0, facilitatorTimeCounts.length);
+        System.arraycopy(base.facilitatorLoads, 0, facilitatorLoads, 0, facilitatorLoads.length);
+        distinctFacilitators = base.distinctFacilitators;
+        genePoints = base.genePoints;
+        System.arraycopy(base.firstGenes, 0, firstGenes, 0, firstGenes.length);
+        System.arraycopy(base.lastGenes, 0, lastGenes, 0, lastGenes.length);
+        System.arraycopy(base.hasConsecutivePair, 0, hasConsecutivePair, 0, hasConsecutivePair.length);
+        System.arraycopy(base.staleFacilitators, 0, staleFacilitators, 0, staleFacilitators.length);
+        consecutivePairStale = base.consecutivePairStale;
+        consecutiveFirstGene = base.consecutiveFirstGene;
+        consecutiveSecondGene = base.consecutiveSecondGene;
+        for (int i = 0; i < rooms.length; i++) {
+            if (rooms[i] != base.rooms[i] || times[i] != base.times[i] || facilitators[i] != base.facilitators[i]) {
+                moveGene(i, base.rooms[i], base.times[i], base.facilitators[i], rooms[i], times[i], facilitators[i]);
+            }
+        }
+    }
+
+    int getPoints() {
+        return genePoints + FitnessEvaluator.sectionPoints(tables, rooms, times) + consecutiveFacilitatorPoints();
+    }
+
+    //Call after the genome arrays have been updated to the new values
+    void moveGene(int gene, int oldRoom, int oldTime, int oldFacilitator, int newRoom, int newTime,
+                  int newFacilitator) {
+        removeGene(gene, oldRoom, oldTime, oldFacilitator);
+        addGene(gene, newRoom, newTime, newFacilitator);
+        if (oldTime != newTime || oldFacilitator != newFacilitator) {
+            staleFacilitators[oldFacilitator] = true;
+            staleFacilitators[newFacilitator] = true;
+            consecutivePairStale = true;
+        }
+    }
+
+    //Points gained if the gene were reassigned, leaving both the genome and this state as they were
+    int pointsDeltaOf(int gene, int newRoom, int newTime, int newFacilitator) {
+        int oldRoom = rooms[gene];
+        int oldTime = times[gene];
+        int oldFacilitator = facilitators[gene];
+        int pointsBefore = getPoints(); //also refreshes the consecutive rule, so only two facilitators can go stale
+
+        int oldFirstGene = firstGenes[oldFacilitator];
+        int oldLastGene = lastGenes[oldFacilitator];
+        boolean oldHasConsecutivePair = hasConsecutivePair[oldFacilitator];
+        int newFirstGene = firstGenes[newFacilitator];
+        int newLastGene = lastGenes[newFacilitator];
+        boolean newHasConsecutivePair = hasConsecutivePair[newFacilitator];
+        int consecutiveFirstGeneBefore = consecutiveFirstGene;
+        int consecutiveSecondGeneBefore = consecutiveSecondGene;
+
+        setGenome(gene, newRoom, newTime, newFacilitator);
+        moveGene(gene, oldRoom, oldTime, oldFacilitator, newRoom, newTime, newFacilitator);
+        int pointsAfter = getPoints();
+        setGenome(gene, oldRoom, oldTime, oldFacilitator);
+        moveGene(gene, newRoom, newTime, newFacilitator, oldRoom, oldTime, oldFacilitator);
+
+        firstGenes[newFacilitator] = newFirstGene;
+        lastGenes[newFacilitator] = newLastGene;
+        hasConsecutivePair[newFacilitator] = newHasConsecutivePair;
+        firstGenes[oldFacilitator] = oldFirstGene;
+        lastGenes[oldFacilitator] = oldLastGene;
+        hasConsecutivePair[oldFacilitator] = oldHasConsecutivePair;
+        staleFacilitators[oldFacilitator] = false;
+        staleFacilitators[newFacilitator] = false;
+        consecutiveFirstGene = consecutiveFirstGeneBefore;
+        consecutiveSecondGene = consecutiveSecondGeneBefore;
+        consecutivePairStale = false;
+
+        return pointsAfter - pointsBefore;
+    }
+
+    private void setGenome(int gene, int room, int time, int facilitator) {
+        rooms[gene] = room;
+        times[gene] = time;
+        facilitators[gene] = facilitator;
+    }
+
+    private void addGene(int gene, int room, int time, int facilitator) {
+        genePoints += tables.roomPoints[gene * tables.numberOfRooms + room]
+                + tables.timePoints[gene * numberOfTimes + time]
+                + tables.facilitatorPoints[gene * tables.numberOfFacilitators + facilitator];
+
+        int roomTimeCell = room * numberOfTimes + time;
+        genePoints -= FitnessEvaluator.roomClashPoints(tables, roomTimeCounts[roomTimeCell]);
+        genePoints += FitnessEvaluator.roomClashPoints(tables, ++roomTimeCounts[roomTimeCell]);
+
+        int facilitatorTimeCell = facilitator * numberOfTimes + time;
+        genePoints -= FitnessEvaluator.facilitatorSlotPoints(tables, facilitatorTimeCounts[facilitatorTimeCell]);
+        genePoints += FitnessEvaluator.facilitatorSlotPoints(tables, ++facilitatorTimeCounts[facilitatorTimeCell]);
+
+        if (facilitatorLoads[facilitator] == 0) {
+            distinctFacilitators++;
+        }
+        genePoints -= FitnessEvaluator.facilitatorLoadPoints(tables, facilitator, facilitatorLoads[facilitator]);
+        genePoints += FitnessEvaluator.facilitatorLoadPoints(tables, facilitator, ++facilitatorLoads[facilitator]);
+    }
+
+    private void removeGene(int gene, int room, int time, int facilitator) {
+        genePoints -= tables.roomPoints[gene * tables.numberOfRooms + room]
+                + tables.timePoints[gene * numberOfTimes + time]
+                + tables.facilitatorPoints[gene * tables.numberOfFacilitators + facilitator];
+
+        int roomTimeCell = room * numberOfTimes + time;
+        genePoints -= FitnessEvaluator.roomClashPoints(tables, roomTimeCounts[roomTimeCell]);
+        genePoints += FitnessEvaluator.roomClashPoints(tables, --roomTimeCounts[roomTimeCell]);
+
+        int facilitatorTimeCell = facilitator * numberOfTimes + time;
+        genePoints -= FitnessEvaluator.facilitatorSlotPoints(tables, facilitatorTimeCounts[facilitatorTimeCell]);
+        genePoints += FitnessEvaluator.facilitatorSlotPoints(tables, --facilitatorTimeCounts[facilitatorTimeCell]);
+
+        genePoints -= FitnessEvaluator.facilitatorLoadPoints(tables, facilitator, facilitatorLoads[facilitator]);
+        genePoints += FitnessEvaluator.facilitatorLoadPoints(tables, facilitator, --facilitatorLoads[facilitator]);
+        if (facilitatorLoads[facilitator] == 0) {
+            distinctFacilitators--;
+        }
+    }
+
+    private int consecutiveFacilitatorPoints() {
+        if (consecutivePairStale) {
+            refreshStaleFacilitators();
+            refreshConsecutivePair();
+            consecutivePairStale = false;
+        }
+        if (consecutiveFirstGene < 0) {
+            return 0;
+        }
+        return FitnessEvaluator.facilitatorConsecutivePoints(tables, rooms[consecutiveFirstGene],
+                rooms[consecutiveSecondGene]);
+    }
+
+    //The genes the consecutive facilitator rule scores, as {first, second}, or null if no facilitator has a pair
+    int[] consecutiveFacilitatorPair() {
+        consecutiveFacilitatorPoints();
+        return consecutiveFirstGene < 0 ? null : new int[]{consecutiveFirstGene, consecutiveSecondGene};
+    }
+
+    //One pass over the genome recomputes first/last gene and the consecutive pair flag of every stale facilitator
+    private void refreshStaleFacilitators() {
+        for (int facilitator = 0; facilitator < staleFacilitators.length; facilitator++) {
+            if (staleFacilitators[facilitator]) {
+                firstGenes[facilitator] = -1;
+                hasConsecutivePair[facilitator] = false;
+                Arrays.fill(seenTimes, facilitator * numberOfTimes, (facilitator + 1) * numberOfTimes, false);
+            }
+        }
+        for (int i = 0; i < facilitators.length; i++) {
+            int facilitator = facilitators[i];
+            if (staleFacilitators[facilitator]) {
+                if (firstGenes[facilitator] < 0) {
+                    firstGenes[facilitator] = i;
+                }
+                lastGenes[facilitator] = i;
+            }
+        }
+        //The reference pair search never looks at the last gene of a facilitator
+        for (int i = 0; i < facilitators.length; i++) {
+            int facilitator = facilitators[i];
+            if (!staleFacilitators[facilitator] || i == lastGenes[facilitator]) {
+                continue;
+            }
+            for (int consecutiveTime : tables.consecutiveTimes[times[i]]) {
+                if (seenTimes[facilitator * numberOfTimes + consecutiveTime]) {
+                    hasConsecutivePair[facilitator] = true;
+                }
+            }
+            seenTimes[facilitator * numberOfTimes + times[i]] = true;
+        }
+        Arrays.fill(staleFacilitators, false);
+    }
+
+    private void refreshConsecutivePair() {
+        int chosenFacilitator = FitnessEvaluator.lastFacilitatorInHashMapOrder(
+                tables, hasConsecutivePair, facilitatorLoads, firstGenes, distinctFacilitators);
+        consecutiveFirstGene = -1;
+        consecutiveSecondGene = -1;
+        if (chosenFacilitator >= 0) {
+            findFirstConsecutivePair(chosenFacilitator);
+        }
+    }
+
+    //The pair GeneticUtils.getConsecutiveTimes returns: smallest i first, then smallest j, never the last gene.
+    //Walks the facilitator's genes right to left counting the times seen so far.
+    private void findFirstConsecutivePair(int facilitator) {
+        int lastGene = lastGenes[facilitator];
+        Arrays.fill(laterTimeCounts, 0);
+        int first = -1;
+        for (int i = lastGene - 1; i >= 0; i--) {
+            if (facilitators[i] != facilitator) {
+                continue;
+            }
+            for (int consecutiveTime : tables.consecutiveTimes[times[i]]) {
+                if (laterTimeCounts[consecutiveTime] > 0) {
+                    first = i;
+                    break;
+                }
+            }
+            laterTimeCounts[times[i]]++;
+        }
+        for (int j = first + 1; j < lastGene; j++) {
+            if (facilitators[j] == facilitator
+                    && tables.timeDifferences[times[first] * numberOfTimes + times[j]] == 1) {
+                consecutiveFirstGene = first;
+                consecutiveSecondGene = j;
+                return;
+            }
+        }
+        throw new IllegalStateException("Facilitator " + facilitator + " has no consecutive pair");
+    }
+}
@@ -0,0 +1,239 @@
+package geneticalgorithm;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import records.ActivityRecord;
+import records.DataListManager;
+import records.RoomRecord;
+import records.TimeRecord;
+
+//The static parts of fitness, precomputed once so the evaluator only does array loads.
+//Points are hundredths of a fitness unit, see FitnessEvaluator.POINTS_PER_UNIT. The weights and limits come from
+//FitnessRules, compiled here: every per-gene rule is summed into roomPoints, timePoints and facilitatorPoints.
+//A FitnessTables is also the problem instance a chromosome belongs to: it keeps the records its indices refer
+//to, and the Zobrist keys its genomes are hashed with. DEFAULT is the course data in DataListManager; other
+//instances, e.g. from InstanceGenerator, name their own low load exemptions, avoidance rooms and linked sections.
+public final class FitnessTables {
+
+    public static final FitnessTables DEFAULT = new FitnessTables(
+            DataListManager.ACTIVITIES,
+            DataListManager.ROOMS,
+            DataListManager.TIMES,
+            DataListManager.FACILITATORS
+    );
+
+    final int numberOfActivities;
+    final int numberOfRooms;
+    final int numberOfTimes;
+    final int numberOfFacilitators;
+
+    final FitnessRules rules;
+    //[activity * numberOfRooms + room], room size and extra room rules
+    final int[] roomPoints;
+    //[activity * numberOfTimes + time], extra time rules; all 0 unless hasTimePoints
+    final int[] timePoints;
+    final boolean hasTimePoints;
+    //[activity * numberOfFacilitators + facilitator], preference and extra facilitator rules
+    final int[] facilitatorPoints;
+    //Pairwise, per gene in the cell
+    final int roomClashPoints;
+    final int singleSlotPoints;
+    final int doubleBookedPoints;
+    //Per gene of a facilitator whose load is above maxLoad
+    final int overloadPoints;
+    final int maxLoad;
+    final int minLoad;
+    //Section pairs
+    final int farApartHours;
+    final int sectionsFarApartPoints;
+    final int sectionsSameTimePoints;
+    final int linkedConsecutivePoints;
+    final int linkedSeparatedPoints;
+    final int linkedSameTimePoints;
+    final int facilitatorConsecutivePoints;
+    final int roomAvoidancePoints;
+    //[time * numberOfTimes + otherTime], hours between the two times
+    final int[] timeDifferences;
+    //[time], the times exactly one hour away
+    final int[][] consecutiveTimes;
+    final List<ActivityRecord> activities;
+    final List<RoomRecord> rooms;
+    final List<TimeRecord> times;
+    final List<String> facilitators;
+
+    //[facilitator], Dr. Tyler has no penalty for overseeing fewer than 3 activities
+    final boolean[] exemptFromLowLoad;
+    //[facilitator], the per activity low load penalty: 0 for those exempt
+    final int[] lowLoadPoints;
+    //[room], Roman 201 and Beach 201
+    final boolean[] avoidanceRooms;
+    //Four activities per group: two sections of one course, then two sections of the course linked to it,
+    //like SLA100A, SLA100B, SLA191A, SLA191B; see FitnessEvaluator.sectionPoints
+    final int[] sectionActivities;
+    final ZobristKeys zobristKeys;
+    //[facilitator], spread String hash deciding HashMap iteration order in the consecutive facilitator rule
+    final int[] facilitatorHashes;
+
+    public FitnessTables(List<ActivityRecord> activities, List<RoomRecord> rooms, List<TimeRecord> times,
+                         List<String> facilitators) {
+        this(activities, rooms, times, facilitators, FitnessRules.DEFAULT);
+    }
+
+    //The course data under other rules
+    public FitnessTables(List<ActivityRecord> activities, List<RoomRecord> rooms, List<TimeRecord> times,
+                         List<String> facilitators, FitnessRules rules) {
+        this(activities, rooms, times, facilitators, List.of("Tyler"), List.of("Roman 201", "Beach 201"),
+                List.of(List.of("SLA100A", "SLA100B", "SLA191A", "SLA191B")), rules);
+    }
+
+    public FitnessTables(List<ActivityRecord> activities, List<RoomRecord> rooms, List<TimeRecord> times,
+                         List<String> facilitators, List<String> lowLoadExemptFacilitators,
+                         List<String> avoidanceRoomNames, List<List<String>> linkedSections) {
+        this(activities, rooms, times, facilitators, lowLoadExemptFacilitators, avoidanceRoomNames, linkedSections,
+                FitnessRules.DEFAULT);
+    }
+
+    //linkedSections: the four activity names of each section group, in the order of sectionActivities
+    public FitnessTables(List<ActivityRecord> activities, List<RoomRecord> rooms, List<TimeRecord> times,
+                         List<String> facilitators, List<String> lowLoadExemptFacilitators,
+                         List<String> avoidanceRoomNames, List<List<String>> linkedSections, FitnessRules rules) {
+        this.rules = rules;
+        this.activities = List.copyOf(activities);
+        this.rooms = List.copyOf(rooms);
+        this.times = List.copyOf(times);
+        this.facilitators = List.copyOf(facilitators);
+        numberOfActivities = activities.size();
+        numberOfRooms = rooms.size();
+        numberOfTimes = times.size();
+        numberOfFacilitators = facilitators.size();
+
+        roomPoints = new int[numberOfActivities * numberOfRooms];
+        timePoints = new int[numberOfActivities * numberOfTimes];
+        facilitatorPoints = new int[numberOfActivities * numberOfFacilitators];
+        for (int activity = 0; activity < numberOfActivities; activity++) {
+            ActivityRecord activityRecord = activities.get(activity);
+            for (int room = 0; room < numberOfRooms; room++) {
+                roomPoints[activity * numberOfRooms + room] = rules.points(
+                        rules.roomSizeRule(activityRecord.expectedEnrollment(), rooms.get(room).capacity()));
+            }
+            for (int facilitator = 0; facilitator < numberOfFacilitators; facilitator++) {
+                facilitatorPoints[activity * numberOfFacilitators + facilitator] =
+                        rules.points(rules.preferenceRule(activityRecord, facilitators.get(facilitator)));
+            }
+        }
+        boolean anyTimeRule = false;
+        for (FitnessRules.GeneRule rule : rules.getGeneRules()) {
+            int value = indexOfValue(rule);
+            for (int activity = 0; activity < numberOfActivities; activity++) {
+                if (!rule.matches(activities.get(activity))) {
+                    continue;
+                }
+                switch (rule.target()) {
+                    case ROOM -> roomPoints[activity * numberOfRooms + value] += rule.points();
+                    case TIME -> timePoints[activity * numberOfTimes + value] += rule.points();
+                    case FACILITATOR -> facilitatorPoints[activity * numberOfFacilitators + value] += rule.points();
+                }
+            }
+            anyTimeRule |= rule.target() == FitnessRules.Target.TIME;
+        }
+        hasTimePoints = anyTimeRule;
+
+        roomClashPoints = rules.points(FitnessRules.Weight.ROOM_CLASH);
+        singleSlotPoints = rules.points(FitnessRules.Weight.FACILITATOR_SINGLE_SLOT);
+        doubleBookedPoints = rules.points(FitnessRules.Weight.FACILITATOR_DOUBLE_BOOKED);
+        overloadPoints = rules.points(FitnessRules.Weight.FACILITATOR_OVERLOAD);
+        maxLoad = rules.limit(FitnessRules.Limit.FACILITATOR_MAX_LOAD);
+        minLoad = rules.limit(FitnessRules.Limit.FACILITATOR_MIN_LOAD);
+        farApartHours = rules.limit(FitnessRules.Limit.SECTIONS_FAR_APART_HOURS);
+        sectionsFarApartPoints = rules.points(FitnessRules.Weight.SECTIONS_FAR_APART);
+        sectionsSameTimePoints = rules.points(FitnessRules.Weight.SECTIONS_SAME_TIME);
+        linkedConsecutivePoints = rules.points(FitnessRules.Weight.LINKED_CONSECUTIVE);
+        linkedSeparatedPoints = rules.points(FitnessRules.Weight.LINKED_SEPARATED);
+        linkedSameTimePoints = rules.points(FitnessRules.Weight.LINKED_SAME_TIME);
+        facilitatorConsecutivePoints = rules.points(FitnessRules.Weight.FACILITATOR_CONSECUTIVE);
+        roomAvoidancePoints = rules.points(FitnessRules.Weight.CONSECUTIVE_ROOM_AVOIDANCE);
+
+        timeDifferences = new int[numberOfTimes * numberOfTimes];
+        consecutiveTimes = new int[numberOfTimes][];
+        for (int time = 0; time < numberOfTimes; time++) {
+            for (int otherTime = 0; otherTime < numberOfTimes; otherTime++) {
+                timeDifferences[time * numberOfTimes + otherTime] =
+                        times.get(time).differenceBetween(times.get(otherTime));
+            }
+            final int fromTime = time;
+            consecutiveTimes[time] = IntStream.range(0, numberOfTimes)
+                    .filter(otherTime -> timeDifferences[fromTime * numberOfTimes + otherTime] == 1)
+                    .toArray();
+        }
+
+        exemptFromLowLoad = new boolean[numberOfFacilitators];
+        lowLoadPoints = new int[numberOfFacilitators];
+        facilitatorHashes = new int[numberOfFacilitators];
+        for (int facilitator = 0; facilitator < numberOfFacilitators; facilitator++) {
+            exemptFromLowLoad[facilitator] = lowLoadExemptFacilitators.contains(facilitators.get(facilitator));
+            lowLoadPoints[facilitator] = exemptFromLowLoad[facilitator] ? 0
+                    : rules.points(FitnessRules.Weight.FACILITATOR_UNDERLOAD);
+            int hash = facilitators.get(facilitator).hashCode();
+            facilitatorHashes[facilitator] = hash ^ (hash >>> 16);
+        }
+
+        avoidanceRooms = new boolean[numberOfRooms];
+        for (int room = 0; room < numberOfRooms; room++) {
+            String name = rooms.get(room).name();
+            avoidanceRooms[room] = avoidanceRoomNames.contains(name);
+        }
+
+        sectionActivities = new int[4 * linkedSections.size()];
+        for (int group = 0; group < linkedSections.size(); group++) {
+            List<String> names = linkedSections.get(group);
+            if (names.size() != 4) {
+                throw new IllegalArgumentException("A section group has four activities, not " + names);
+            }
+            for (int i = 0; i < 4; i++) {
+                sectionActivities[4 * group + i] = indexOfActivity(activities, names.get(i));
+            }
+        }
+        zobristKeys = new ZobristKeys(this, ZobristKeys.SEED);
+    }
+
+    public int getNumberOfActivities() {
+        return numberOfActivities;
+    }
+
+    public int getNumberOfRooms() {
+        return numberOfRooms;
+    }
+
+    public int getNumberOfTimes() {
+        return numberOfTimes;
+    }
+
+    public int getNumberOfFacilitators() {
+        return numberOfFacilitators;
+    }
+
+    //The index of the room, time or facilitator a gene rule names
+    int indexOfValue(FitnessRules.GeneRule rule) {
+        List<String> names = switch (rule.target()) {
+            case ROOM -> rooms.stream().map(RoomRecord::name).toList();
+            case TIME -> times.stream().map(TimeRecord::toPrettyString).toList();
+            case FACILITATOR -> facilitators;
+        };
+        int index = names.indexOf(rule.value());
+        if (index < 0) {
+            throw new IllegalArgumentException("Gene rule " + rule.name() + " names an unknown "
+                    + rule.target().name().toLowerCase() + " '" + rule.value() + "'");
+        }
+        return index;
+    }
+
+    private static int indexOfActivity(List<ActivityRecord> activities, String name) {
+        for (int i = 0; i < activities.size(); i++) {
+            if (activities.get(i).name().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("The name '" + name + "' is not a valid activity name");
+    }
+}
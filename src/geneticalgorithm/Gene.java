@@ -1,18 +1,15 @@
 package geneticalgorithm;
 
-import java.util.Random;
-
 import records.ActivityRecord;
 import records.RoomRecord;
-import records.DataListManager;
 import records.TimeRecord;
 
-//This is the genetic representation of an activity
+//Read-only view of one activity of a Chromosome, used for printing and the reference fitness rules
 public class Gene {
     private final ActivityRecord activity;
-    private RoomRecord room;
-    private TimeRecord time;
-    private String facilitator;
+    private final RoomRecord room;
+    private final TimeRecord time;
+    private final String facilitator;
 
     public Gene(ActivityRecord activity, RoomRecord room, TimeRecord time, String facilitator) {
         this.activity = activity;
@@ -21,43 +18,6 @@ public class Gene {
         this.facilitator = facilitator;
     }
 
-    Gene copy() {
-        return new Gene(activity, room, time, facilitator);
-    }
-
-    void mutateFacilitator() {
-        Random random = new Random();
-        String newFacilitator;
-        do {
-            newFacilitator = DataListManager.FACILITATORS.get(
-                    random.nextInt(DataListManager.NUMBER_OF_FACILITATORS)
-            );
-        } while (newFacilitator.equals(facilitator));
-        facilitator = newFacilitator;
-    }
-
-    void mutateTime() {
-        Random random = new Random();
-        TimeRecord newTime;
-        do {
-            newTime = DataListManager.TIMES.get(
-                    random.nextInt(DataListManager.NUMBER_OF_TIMES)
-            );
-        } while(newTime.equals(time));
-        time = newTime;
-    }
-
-    void mutateRoom() {
-        Random random = new Random();
-        RoomRecord newRoom;
-        do {
-            newRoom = DataListManager.ROOMS.get(
-                    random.nextInt( DataListManager.NUMBER_OF_ROOMS)
-            );
-        } while (newRoom.equals(room));
-        room = newRoom;
-    }
-
     public ActivityRecord getActivity() {
         return activity;
     }
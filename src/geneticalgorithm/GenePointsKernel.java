@@ -0,0 +1,46 @@
+package geneticalgorithm;
+
+/*
+Sums the per-gene rules of a batch of chromosomes stored column-major: gene g of chromosome c is at
+[g * stride + c]. The per cell rules split exactly into per gene terms, where "count" is how many genes of the
+same chromosome share the gene's cell:
+Room clash, per (room, time): -0.5 if the count is above 1
+Facilitator slot, per (facilitator, time): +0.2 if the count is 1, else -0.2
+Facilitator load, per facilitator: -0.5 if the count is above 4, -0.4 if below 3 (except Dr. Tyler)
+plus the room, time and facilitator points of the gene itself. The weights and limits are those FitnessTables
+compiled from its FitnessRules.
+ */
+interface GenePointsKernel {
+
+    //Chromosomes handled together; the batch stride is a multiple of this so every lane reads valid data
+    int lanes();
+
+    //Fills genePoints[0, count) and may write up to the next multiple of lanes()
+    void sumGenePoints(FitnessTables tables, BatchColumns columns, int count, int[] genePoints);
+
+    //The genome of a batch, column-major, with the cell indices the clash rules compare precomputed
+    final class BatchColumns {
+        final int stride;
+        final int[] facilitators;
+        //gene * numberOfRooms + room, the gene's entry in FitnessTables.roomPoints
+        final int[] roomCells;
+        //gene * numberOfTimes + time, the gene's entry in FitnessTables.timePoints; only filled if hasTimePoints
+        final int[] timeCells;
+        //gene * numberOfFacilitators + facilitator, the gene's entry in FitnessTables.facilitatorPoints
+        final int[] facilitatorCells;
+        //room * numberOfTimes + time
+        final int[] roomTimeCells;
+        //facilitator * numberOfTimes + time
+        final int[] facilitatorTimeCells;
+
+        BatchColumns(int numberOfGenes, int stride) {
+            this.stride = stride;
+            facilitators = new int[numberOfGenes * stride];
+            roomCells = new int[numberOfGenes * stride];
+            timeCells = new int[numberOfGenes * stride];
+            facilitatorCells = new int[numberOfGenes * stride];
+            roomTimeCells = new int[numberOfGenes * stride];
+            facilitatorTimeCells = new int[numberOfGenes * stride];
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package geneticalgorithm;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+//One Population generation in a Java Flight Recorder recording (e.g. -XX:StartFlightRecording); the event's own
+//duration is the whole generation. Fields as in MetricsRegistry.
+@Name("geneticalgorithm.Generation")
+@Label("Generation")
+@Category("Genetic Algorithm")
+@Description("One generation of a Population: phase times, evaluations, allocation and selection pressure")
+@StackTrace(false)
+final class GenerationEvent extends Event {
+
+    @Label("Generation")
+    int generation;
+
+    @Label("Population Seed")
+    long seed;
+
+    @Label("Initial Evaluation")
+    @Timespan(Timespan.NANOSECONDS)
+    long initialEvaluationNanos;
+
+    @Label("Cull")
+    @Timespan(Timespan.NANOSECONDS)
+    long cullNanos;
+
+    @Label("Local Search")
+    @Description("Local search of the elites, wall time")
+    @Timespan(Timespan.NANOSECONDS)
+    long localSearchNanos;
+
+    @Label("Mating Probabilities")
+    @Timespan(Timespan.NANOSECONDS)
+    long matingProbabilitiesNanos;
+
+    @Label("Breeding")
+    @Description("Parent selection, crossover and mutation, summed over the breeding tasks")
+    @Timespan(Timespan.NANOSECONDS)
+    long breedingNanos;
+
+    @Label("Evaluation")
+    @Description("Offspring evaluation, summed over the breeding tasks")
+    @Timespan(Timespan.NANOSECONDS)
+    long evaluationNanos;
+
+    @Label("Evaluations")
+    int evaluations;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Selection Intensity")
+    double selectionIntensity;
+
+    @Label("Best Mating Advantage")
+    double bestMatingAdvantage;
+
+    @Label("Best Fitness")
+    double bestFitness;
+
+    @Label("Mean Fitness")
+    double meanFitness;
+}
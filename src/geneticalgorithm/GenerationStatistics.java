@@ -0,0 +1,85 @@
+package geneticalgorithm;
+
+//Fitness statistics of a population, kept up to date as chromosomes are evaluated and culled instead of being
+//recomputed by scanning. Sums are exact integer points, see FitnessEvaluator.POINTS_PER_UNIT.
+public final class GenerationStatistics {
+    private int count;
+    private long totalPoints;
+    private long totalSquaredPoints;
+    private int bestPoints;
+    private int worstPoints;
+
+    public GenerationStatistics() {
+        clear();
+    }
+
+    void clear() {
+        count = 0;
+        totalPoints = 0;
+        totalSquaredPoints = 0;
+        bestPoints = Integer.MIN_VALUE;
+        worstPoints = Integer.MAX_VALUE;
+    }
+
+    void add(int points) {
+        count++;
+        totalPoints += points;
+        totalSquaredPoints += (long) points * points;
+        bestPoints = Math.max(bestPoints, points);
+        worstPoints = Math.min(worstPoints, points);
+    }
+
+    void addAll(GenerationStatistics other) {
+        count += other.count;
+        totalPoints += other.totalPoints;
+        totalSquaredPoints += other.totalSquaredPoints;
+        bestPoints = Math.max(bestPoints, other.bestPoints);
+        worstPoints = Math.min(worstPoints, other.worstPoints);
+    }
+
+    //The best and worst cannot be recovered after a removal, so whoever removes must supply them again
+    void remove(int points) {
+        count--;
+        totalPoints -= points;
+        totalSquaredPoints -= (long) points * points;
+    }
+
+    void setRange(int bestPoints, int worstPoints) {
+        this.bestPoints = bestPoints;
+        this.worstPoints = worstPoints;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getBestFitness() {
+        return bestPoints / FitnessEvaluator.POINTS_PER_UNIT;
+    }
+
+    public double getWorstFitness() {
+        return worstPoints / FitnessEvaluator.POINTS_PER_UNIT;
+    }
+
+    public double getMeanFitness() {
+        return totalPoints / FitnessEvaluator.POINTS_PER_UNIT / count;
+    }
+
+    //Population variance
+    public double getFitnessVariance() {
+        double meanPoints = (double) totalPoints / count;
+        double variancePoints = Math.max(0, (double) totalSquaredPoints / count - meanPoints * meanPoints);
+        return variancePoints / (FitnessEvaluator.POINTS_PER_UNIT * FitnessEvaluator.POINTS_PER_UNIT);
+    }
+
+    @Override
+    public String toString() {
+        return "GenerationStatistics{" +
+                "count=" + count +
+                ", best=" + getBestFitness() +
+                ", mean=" + getMeanFitness() +
+                ", variance=" + getFitnessVariance() +
+                ", worst=" + getWorstFitness() +
+                '}';
+    }
+}
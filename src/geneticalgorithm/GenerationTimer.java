@@ -0,0 +1,156 @@
+package geneticalgorithm;
+
+import java.util.Arrays;
+
+import jdk.jfr.EventType;
+
+//Collects the numbers of one Population generation for its MetricsRegistry and a GenerationEvent.
+//Loop-thread phases are timed between endPhase calls; breeding tasks record their own times and allocation in
+//per-task slots, summed when the generation finishes. Allocation is only measured while someone is listening: a
+//registry is attached or the event is enabled in a running recording. The loop thread's allocation is measured
+//outside the parallel breeding and local search sections only, since the tasks it runs there measure themselves.
+//The event itself is only created while a recording has it enabled, so an unobserved generation allocates nothing.
+final class GenerationTimer {
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(GenerationEvent.class);
+
+    private final long[] phaseNanos = new long[MetricsRegistry.Phase.values().length];
+    private final long[] taskBreedingNanos;
+    private final long[] taskEvaluationNanos;
+    private final long[] taskAllocatedBytes;
+
+    private GenerationEvent event;
+    private boolean measuringAllocation;
+    private long generationStart;
+    private long phaseStart;
+    private long loopThreadAllocation;
+    private long loopThreadAllocationStart;
+    //Of parallel tasks other than breeding, e.g. local search
+    private long otherTaskAllocation;
+    private int evaluations;
+    private double selectionIntensity;
+    private double bestMatingAdvantage;
+
+    GenerationTimer(int numberOfTasks) {
+        taskBreedingNanos = new long[numberOfTasks];
+        taskEvaluationNanos = new long[numberOfTasks];
+        taskAllocatedBytes = new long[numberOfTasks];
+    }
+
+    void start(MetricsRegistry metrics) {
+        if (EVENT_TYPE.isEnabled()) {
+            event = new GenerationEvent();
+            event.begin();
+        }
+        measuringAllocation = MetricsRegistry.isAllocationMeasured() && (metrics != null || event != null);
+        Arrays.fill(phaseNanos, 0);
+        Arrays.fill(taskBreedingNanos, 0);
+        Arrays.fill(taskEvaluationNanos, 0);
+        Arrays.fill(taskAllocatedBytes, 0);
+        evaluations = 0;
+        selectionIntensity = 0;
+        bestMatingAdvantage = 0;
+        loopThreadAllocation = 0;
+        otherTaskAllocation = 0;
+        resumeAllocation();
+        generationStart = System.nanoTime();
+        phaseStart = generationStart;
+    }
+
+    //Ends a loop-thread phase that started at the previous mark
+    void endPhase(MetricsRegistry.Phase phase) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - phaseStart;
+        phaseStart = now;
+    }
+
+    void pauseAllocation() {
+        if (measuringAllocation) {
+            loopThreadAllocation += MetricsRegistry.currentThreadAllocatedBytes() - loopThreadAllocationStart;
+        }
+    }
+
+    void resumeAllocation() {
+        if (measuringAllocation) {
+            loopThreadAllocationStart = MetricsRegistry.currentThreadAllocatedBytes();
+        }
+    }
+
+    long taskAllocationStart() {
+        return measuringAllocation ? MetricsRegistry.currentThreadAllocatedBytes() : 0;
+    }
+
+    long taskAllocatedSince(long allocationStart) {
+        return measuringAllocation ? MetricsRegistry.currentThreadAllocatedBytes() - allocationStart : 0;
+    }
+
+    void addTaskAllocation(long bytes) {
+        otherTaskAllocation += bytes;
+    }
+
+    void recordTask(int task, long breedingStart, long evaluationStart, long end, long allocationStart) {
+        taskBreedingNanos[task] = evaluationStart - breedingStart;
+        taskEvaluationNanos[task] = end - evaluationStart;
+        if (measuringAllocation) {
+            taskAllocatedBytes[task] = MetricsRegistry.currentThreadAllocatedBytes() - allocationStart;
+        }
+    }
+
+    void addEvaluations(int count) {
+        evaluations += count;
+    }
+
+    void setSelectionIntensity(double selectionIntensity) {
+        this.selectionIntensity = selectionIntensity;
+    }
+
+    void setBestMatingAdvantage(double bestMatingAdvantage) {
+        this.bestMatingAdvantage = bestMatingAdvantage;
+    }
+
+    void finish(MetricsRegistry metrics, int generation, long seed, GenerationStatistics statistics) {
+        long generationNanos = System.nanoTime() - generationStart;
+        pauseAllocation();
+        long allocatedBytes = loopThreadAllocation + otherTaskAllocation;
+        for (int task = 0; task < taskBreedingNanos.length; task++) {
+            phaseNanos[MetricsRegistry.Phase.BREEDING.ordinal()] += taskBreedingNanos[task];
+            phaseNanos[MetricsRegistry.Phase.EVALUATION.ordinal()] += taskEvaluationNanos[task];
+            allocatedBytes += taskAllocatedBytes[task];
+        }
+
+        if (metrics != null) {
+            for (MetricsRegistry.Phase phase : MetricsRegistry.Phase.values()) {
+                //The initial evaluation only happens in the first generation
+                if (phase != MetricsRegistry.Phase.GENERATION
+                        && (phase != MetricsRegistry.Phase.INITIAL_EVALUATION || generation == 0)) {
+                    metrics.recordPhase(phase, phaseNanos[phase.ordinal()]);
+                }
+            }
+            metrics.recordGeneration(generationNanos, evaluations, allocatedBytes, selectionIntensity,
+                    bestMatingAdvantage);
+        }
+
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.generation = generation;
+            event.seed = seed;
+            event.initialEvaluationNanos = phaseNanos[MetricsRegistry.Phase.INITIAL_EVALUATION.ordinal()];
+            event.cullNanos = phaseNanos[MetricsRegistry.Phase.CULL.ordinal()];
+            event.localSearchNanos = phaseNanos[MetricsRegistry.Phase.LOCAL_SEARCH.ordinal()];
+            event.matingProbabilitiesNanos = phaseNanos[MetricsRegistry.Phase.MATING_PROBABILITIES.ordinal()];
+            event.breedingNanos = phaseNanos[MetricsRegistry.Phase.BREEDING.ordinal()];
+            event.evaluationNanos = phaseNanos[MetricsRegistry.Phase.EVALUATION.ordinal()];
+            event.evaluations = evaluations;
+            event.allocatedBytes = allocatedBytes;
+            event.selectionIntensity = selectionIntensity;
+            event.bestMatingAdvantage = bestMatingAdvantage;
+            event.bestFitness = statistics.getBestFitness();
+            event.meanFitness = statistics.getMeanFitness();
+            event.commit();
+        }
+        event = null;
+    }
+}
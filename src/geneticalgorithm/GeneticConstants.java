@@ -8,4 +8,44 @@ public class GeneticConstants {
     public static final double MUTATION_RATE = 0.01;
     public static final int NUMBER_OF_GENES = DataListManager.NUMBER_OF_ACTIVITIES;
     public static final int NUMBER_OF_GENERATIONS = 100;
+    public static final int NUMBER_OF_ISLANDS = 4;
+    public static final int MIGRATION_INTERVAL = 10;
+    public static final int MIGRANTS_PER_MIGRATION = 5;
+
+    //Breeding is split into tasks of this many pairs; each task has its own random stream
+    public static final int PAIRS_PER_BREEDING_TASK = 32;
+
+    //Fitness memo entries per population, or shared by all islands of an IslandModel
+    public static final int FITNESS_CACHE_CAPACITY = 1 << 16;
+    //Offspring identical to a survivor are bred again, up to this many times per pair, when dropping is enabled
+    public static final boolean DROP_DUPLICATE_OFFSPRING = false;
+    public static final int MAX_DUPLICATE_RETRIES = 3;
+
+    //Generations between checkpoints when a run is checkpointed (--checkpoint)
+    public static final int CHECKPOINT_INTERVAL = 10;
+    //Progress summaries that can wait for the console before new ones are dropped; a power of two
+    public static final int PROGRESS_RING_CAPACITY = 256;
+
+    //Guided mutation (MutationEngine.GUIDED) keeps the best of this many drawn values, except for this share of
+    //mutations, which keep a single uniform draw
+    public static final int GUIDED_MUTATION_CANDIDATES = 4;
+    public static final double GUIDED_MUTATION_EXPLORATION = 0.1;
+
+    //Local search of the best survivors, when enabled (Population.setLocalSearch): how many, and the wall time
+    //all of them together may take per generation
+    public static final int LOCAL_SEARCH_ELITES = 4;
+    public static final long LOCAL_SEARCH_BUDGET_MILLIS = 20;
+    //Hill climbing stops after this many sampled moves in a row gained nothing
+    public static final int HILL_CLIMBING_MAX_FAILED_MOVES = 200;
+    //Tabu search: iterations, moves sampled per iteration, and iterations a moved gene stays tabu
+    public static final int TABU_ITERATIONS = 100;
+    public static final int TABU_MOVES_PER_ITERATION = 16;
+    public static final int TABU_TENURE = 7;
+
+    //Pruned domains (DomainIndex): rooms up to this many times the enrollment, times scoring at least these
+    //static points, listed facilitators only, and at least this many values per domain
+    public static final int DOMAIN_MAX_CAPACITY_RATIO = 3;
+    public static final int DOMAIN_MIN_TIME_POINTS = 0;
+    public static final boolean DOMAIN_LISTED_FACILITATORS_ONLY = true;
+    public static final int DOMAIN_MIN_SIZE = 2;
 }
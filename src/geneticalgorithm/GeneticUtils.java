@@ -1,23 +1,144 @@
 package geneticalgorithm;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Random;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import records.ActivityRecord;
-import records.RoomRecord;
 import records.DataListManager;
-import records.TimeRecord;
+import records.RoomRecord;
 
 public class GeneticUtils {
 
-    private static final Random random = new Random();
+    //Scores a schedule by scanning its genes pairwise. FitnessEvaluator gives the same scores in one pass;
+    //this version is kept as the reference the evaluator is checked against.
+    public static double calculateReferenceFitness(List<Gene> geneList) {
+        double fitnessScore = geneList
+                .stream()
+                .mapToDouble(gene -> calculateFitnessOfGene(gene, geneList))
+                .sum();
+
+        /*
+        The 2 sections of SLA 101 are more than 4 hours apart: + 0.5
+        Both sections of SLA 101 are in the same time slot: -0.5
+        The 2 sections of SLA 191 are more than 4 hours apart: + 0.5
+        Both sections of SLA 191 are in the same time slot: -0.5
+         */
+
+        //The 2 sections of SLA 101 are more than 4 hours apart: + 0.5
+        final Gene SLA100A = getGeneByName("SLA100A", geneList);
+        final Gene SLA100B = getGeneByName("SLA100B", geneList);
+        if (SLA100A.getTime().differenceBetween(SLA100B.getTime()) > 4) {
+            fitnessScore += 0.5;
+        }
+
+        //Both sections of SLA 101 are in the same time slot: -0.5
+        else if (SLA100A.getTime().equals(SLA100B.getTime())) {
+            fitnessScore -= 0.5;
+        }
+
+        //The 2 sections of SLA 191 are more than 4 hours apart: + 0.5
+        Gene SLA191A = getGeneByName("SLA191A", geneList);
+        Gene SLA191B = getGeneByName("SLA191B", geneList);
+        if (SLA191A.getTime().differenceBetween(SLA191B.getTime()) > 4) {
+            fitnessScore += 0.5;
+        }
+
+        //Both sections of SLA 191 are in the same time slot: -0.5
+        else if (SLA191A.getTime().equals(SLA191B.getTime())) {
+            fitnessScore -= 0.5;
+        }
+
+        /*
+        A section of SLA 191 and a section of SLA 101 are overseen in consecutive time slots (e.g., 10 AM & 11 AM): +0.5
+        In this case only (consecutive time slots), one of the activities is in Roman or Beach, and the other isn’t: -0.4
+        It’s fine if neither is in one of those buildings, of activity; we just want to avoid having consecutive activities being widely separated.
+         */
+        //4 possible combos: SLA100A with SLA191A, SLA100B with SLA191A, SLA100A with SLA191B, SLA100B with SLA191B
+        final RoomRecord roman201 = DataListManager.getRoomByName("Roman 201");
+        final RoomRecord beach201 = DataListManager.getRoomByName("Beach 201");
+
+        if (SLA100A.getTime().differenceBetween(SLA191A.getTime()) == 1) {
+            fitnessScore += 0.5;
+            if (isRoomAvoidanceMet(SLA100A, SLA191A, roman201, beach201)) {
+                fitnessScore -= 0.4;
+            }
+        } else if (SLA100B.getTime().differenceBetween(SLA191A.getTime()) == 1) {
+            fitnessScore += 0.5;
+            if (isRoomAvoidanceMet(SLA100B, SLA191A, roman201, beach201)) {
+                fitnessScore -= 0.4;
+            }
+        } else if (SLA100A.getTime().differenceBetween(SLA191B.getTime()) == 1) {
+            fitnessScore += 0.5;
+            if (isRoomAvoidanceMet(SLA100A, SLA191B, roman201, beach201)) {
+                fitnessScore -= 0.4;
+            }
+        } else if (SLA100B.getTime().differenceBetween(SLA191B.getTime()) == 1) {
+            fitnessScore += 0.5;
+            if (isRoomAvoidanceMet(SLA100B, SLA191B, roman201, beach201)) {
+                fitnessScore -= 0.4;
+            }
+        }
+
+
+        //A section of SLA 191 and a section of SLA 101 are taught separated by 1 hour (e.g., 10 AM & 12:00 Noon): + 0.25
+        else if (SLA100A.getTime().differenceBetween(SLA191A.getTime()) > 1) {
+            fitnessScore += 0.25;
+        } else if (SLA100B.getTime().differenceBetween(SLA191A.getTime()) > 1) {
+            fitnessScore += 0.25;
+        } else if (SLA100A.getTime().differenceBetween(SLA191B.getTime()) > 1) {
+            fitnessScore += 0.25;
+        } else if (SLA100B.getTime().differenceBetween(SLA191B.getTime()) > 1) {
+            fitnessScore += 0.25;
+        }
+
+        //A section of SLA 191 and a section of SLA 101 are taught in the same time slot: -0.25
+        else if (SLA100A.getTime().equals(SLA191A.getTime())) {
+            fitnessScore -= 0.25;
+        } else if (SLA100B.getTime().equals(SLA191A.getTime())) {
+            fitnessScore -= 0.25;
+        } else if (SLA100A.getTime().equals(SLA191B.getTime())) {
+            fitnessScore -= 0.25;
+        } else if (SLA100B.getTime().equals(SLA191B.getTime())) {
+            fitnessScore -= 0.25;
+        }
+
+        //If any facilitator scheduled for consecutive time slots: Same rules as for SLA 191 and SLA 101 in consecutive time slots—see below.
+        Map<String, List<Gene>> facilitatorToActivityMap = new HashMap<>();
+        for (Gene gene : geneList) {
+            if (!facilitatorToActivityMap.containsKey(gene.getFacilitator())) {
+                facilitatorToActivityMap.put(gene.getFacilitator(), new ArrayList<>(List.of(gene)));
+            } else {
+                List<Gene> genes = facilitatorToActivityMap.get(gene.getFacilitator());
+                genes.add(gene);
+                facilitatorToActivityMap.put(gene.getFacilitator(), genes);
+            }
+        }
+        List<Gene> consecutiveGenes = Collections.emptyList();
+
+        for (var entry : facilitatorToActivityMap.entrySet()) {
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                if (areAnyTimesConsecutive(entry.getValue())) {
+                    consecutiveGenes = getConsecutiveTimes(entry.getValue());
+                }
+            }
+        }
 
-    public static double calculateFitnessOfGene(Gene targetGene, Chromosome chromosome) {
+        if (!consecutiveGenes.isEmpty()) {
+            fitnessScore += 0.5;
+            if (isRoomAvoidanceMet(
+                    consecutiveGenes.get(0),
+                    consecutiveGenes.get(1),
+                    roman201,
+                    beach201)) {
+                fitnessScore -= 0.4;
+            }
+        }
+        return fitnessScore;
+    }
+
+    public static double calculateFitnessOfGene(Gene targetGene, List<Gene> geneList) {
         double fitnessScore = 0;
-        List<Gene> remainingGenes = getRemainingGenes(targetGene, chromosome);
+        List<Gene> remainingGenes = getRemainingGenes(targetGene, geneList);
 
         //Activity is scheduled at the same time in the same room as another of the activities: -0.5
         if(remainingGenes.stream().anyMatch(gene -> isActivitySamePlaceAndTime(gene, targetGene))) {
@@ -99,8 +220,8 @@ public class GeneticUtils {
         return fitnessScore;
     }
 
-    public static List<Gene> getRemainingGenes(Gene targetGene, Chromosome chromosome) {
-        return chromosome.geneList()
+    public static List<Gene> getRemainingGenes(Gene targetGene, List<Gene> geneList) {
+        return geneList
                 .stream()
                 .filter(gene -> targetGene != gene)
                 .collect(Collectors.toList());
@@ -125,19 +246,43 @@ public class GeneticUtils {
         return Collections.emptyList();
     }
 
-    public static boolean mutationOccurred(double mutationRate) {
-        return (random.nextInt(1, (int)(1.0 / mutationRate))) == 1;
+    public static Chromosome createRandomChromosome(SplittableRandom random) {
+        return createRandomChromosome(FitnessTables.DEFAULT, random);
     }
 
-    public static Gene createRandomGene(ActivityRecord activity) {
-        return new Gene(activity, getRandomRoom(), getRandomTime(), getRandomFacilitator());
+    public static Chromosome createRandomChromosome(FitnessTables tables, SplittableRandom random) {
+        int numberOfGenes = tables.getNumberOfActivities();
+        int[] rooms = new int[numberOfGenes];
+        int[] times = new int[numberOfGenes];
+        int[] facilitators = new int[numberOfGenes];
+        for(int i = 0; i < numberOfGenes; i++) {
+            rooms[i] = random.nextInt(tables.getNumberOfRooms());
+            times[i] = random.nextInt(tables.getNumberOfTimes());
+            facilitators[i] = random.nextInt(tables.getNumberOfFacilitators());
+        }
+        return new Chromosome(tables, rooms, times, facilitators);
     }
 
-    public static Gene getGeneByName(String name, Chromosome chromosome) {
+    //Draws every gene from its activity's pruned domains
+    public static Chromosome createRandomChromosome(DomainIndex domains, SplittableRandom random) {
+        FitnessTables tables = domains.tables();
+        int numberOfGenes = tables.getNumberOfActivities();
+        int[] rooms = new int[numberOfGenes];
+        int[] times = new int[numberOfGenes];
+        int[] facilitators = new int[numberOfGenes];
+        for(int i = 0; i < numberOfGenes; i++) {
+            rooms[i] = domains.pick(FitnessRules.Target.ROOM, i, random);
+            times[i] = domains.pick(FitnessRules.Target.TIME, i, random);
+            facilitators[i] = domains.pick(FitnessRules.Target.FACILITATOR, i, random);
+        }
+        return new Chromosome(tables, rooms, times, facilitators);
+    }
+
+    public static Gene getGeneByName(String name, List<Gene> geneList) {
         if(!DataListManager.ACTIVITY_NAMES.contains(name)) {
             throw new IllegalArgumentException("The name '" + name + "' is not a valid activity name");
         }
-        return chromosome.geneList()
+        return geneList
                 .stream()
                 .filter(gene -> gene.getActivity().name().equals(name))
                 .toList()
@@ -161,18 +306,6 @@ public class GeneticUtils {
 
 
 
-    private static RoomRecord getRandomRoom() {
-        return DataListManager.ROOMS.get(random.nextInt(DataListManager.NUMBER_OF_ROOMS));
-    }
-
-    private static TimeRecord getRandomTime() {
-        return DataListManager.TIMES.get(random.nextInt(DataListManager.NUMBER_OF_TIMES));
-    }
-
-    private static String getRandomFacilitator() {
-        return DataListManager.FACILITATORS.get(random.nextInt(DataListManager.NUMBER_OF_FACILITATORS));
-    }
-
     public static boolean isActivitySamePlaceAndTime(Gene gene, Gene targetGene) {
         return gene.getTime().equals(targetGene.getTime()) && gene.getRoom().equals(targetGene.getRoom());
     }
@@ -0,0 +1,143 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+
+/*
+Conflict-aware choice of a gene's new room, time or facilitator, see MutationEngine.Mode.GUIDED.
+Before the first mutation of a chromosome its room x time and facilitator x time counts and facilitator loads are
+counted, and every mutation keeps them up to date. A mutation draws a few different values and keeps the one
+that scores best against them:
+Room: its static points (size fit, extra room rules) and whether the room is free at the gene's time.
+Time: its static points and whether the gene's room and facilitator are free then.
+Facilitator: its static points (preference, extra facilitator rules), whether it is free at the gene's time and
+whether one more activity would overload it.
+Scores use the weights of the chromosome's FitnessTables. Now and then a uniform draw is kept instead, so guided
+mutation does not collapse the population onto the locally best values. With a DomainIndex every value is drawn
+from the gene's pruned domain.
+Not thread safe: MutationEngine keeps one per thread.
+ */
+final class GuidedMutation {
+
+    private FitnessTables tables;
+    private DomainIndex domains;
+    private int[] roomTimeCounts;
+    private int[] facilitatorTimeCounts;
+    private int[] facilitatorLoads;
+    //GUIDED_MUTATION_CANDIDATES values other than the current one, or a single one on an exploring mutation
+    private final int[] candidates = new int[GeneticConstants.GUIDED_MUTATION_CANDIDATES];
+    private final int[] exploration = new int[1];
+
+    //Counts the chromosome's occupancy; call release once its mutations are done. Domains may be null.
+    void count(Chromosome chromosome, DomainIndex domains) {
+        this.domains = domains;
+        FitnessTables chromosomeTables = chromosome.tables();
+        if (tables != chromosomeTables) {
+            tables = chromosomeTables;
+            roomTimeCounts = new int[tables.numberOfRooms * tables.numberOfTimes];
+            facilitatorTimeCounts = new int[tables.numberOfFacilitators * tables.numberOfTimes];
+            facilitatorLoads = new int[tables.numberOfFacilitators];
+        }
+        int[] rooms = chromosome.rooms();
+        int[] times = chromosome.times();
+        int[] facilitators = chromosome.facilitators();
+        for (int gene = 0; gene < rooms.length; gene++) {
+            add(rooms[gene], times[gene], facilitators[gene], 1);
+        }
+    }
+
+    //Zeroes only the cells the chromosome touches, so the next count starts from empty tables
+    void release(Chromosome chromosome) {
+        int[] rooms = chromosome.rooms();
+        int[] times = chromosome.times();
+        int[] facilitators = chromosome.facilitators();
+        int numberOfTimes = tables.numberOfTimes;
+        for (int gene = 0; gene < rooms.length; gene++) {
+            roomTimeCounts[rooms[gene] * numberOfTimes + times[gene]] = 0;
+            facilitatorTimeCounts[facilitators[gene] * numberOfTimes + times[gene]] = 0;
+            facilitatorLoads[facilitators[gene]] = 0;
+        }
+    }
+
+    void mutateRoom(Chromosome chromosome, int gene, SplittableRandom random) {
+        int room = chromosome.rooms()[gene];
+        int time = chromosome.times()[gene];
+        int best = room;
+        int bestScore = Integer.MIN_VALUE;
+        for (int candidate : candidates(FitnessRules.Target.ROOM, gene, room, tables.numberOfRooms, random)) {
+            int score = tables.roomPoints[gene * tables.numberOfRooms + candidate]
+                    + (roomTimeCounts[candidate * tables.numberOfTimes + time] > 0 ? 2 * tables.roomClashPoints : 0);
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        move(chromosome, gene, best, time, chromosome.facilitators()[gene]);
+    }
+
+    void mutateTime(Chromosome chromosome, int gene, SplittableRandom random) {
+        int room = chromosome.rooms()[gene];
+        int time = chromosome.times()[gene];
+        int facilitator = chromosome.facilitators()[gene];
+        int numberOfTimes = tables.numberOfTimes;
+        int best = time;
+        int bestScore = Integer.MIN_VALUE;
+        for (int candidate : candidates(FitnessRules.Target.TIME, gene, time, numberOfTimes, random)) {
+            int score = tables.timePoints[gene * numberOfTimes + candidate]
+                    + (roomTimeCounts[room * numberOfTimes + candidate] > 0 ? 2 * tables.roomClashPoints : 0)
+                    + (facilitatorTimeCounts[facilitator * numberOfTimes + candidate] > 0
+                    ? 2 * (tables.doubleBookedPoints - tables.singleSlotPoints) : 0);
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        move(chromosome, gene, room, best, facilitator);
+    }
+
+    void mutateFacilitator(Chromosome chromosome, int gene, SplittableRandom random) {
+        int time = chromosome.times()[gene];
+        int facilitator = chromosome.facilitators()[gene];
+        int best = facilitator;
+        int bestScore = Integer.MIN_VALUE;
+        for (int candidate : candidates(FitnessRules.Target.FACILITATOR, gene, facilitator,
+                tables.numberOfFacilitators, random)) {
+            int score = tables.facilitatorPoints[gene * tables.numberOfFacilitators + candidate]
+                    + (facilitatorTimeCounts[candidate * tables.numberOfTimes + time] > 0
+                    ? 2 * (tables.doubleBookedPoints - tables.singleSlotPoints) : 0)
+                    + (facilitatorLoads[candidate] >= tables.maxLoad ? tables.overloadPoints : 0);
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        move(chromosome, gene, chromosome.rooms()[gene], time, best);
+    }
+
+    private int[] candidates(FitnessRules.Target target, int gene, int current, int bound, SplittableRandom random) {
+        if (random.nextDouble() < GeneticConstants.GUIDED_MUTATION_EXPLORATION) {
+            exploration[0] = pickDifferent(target, gene, current, bound, random);
+            return exploration;
+        }
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = pickDifferent(target, gene, current, bound, random);
+        }
+        return candidates;
+    }
+
+    private int pickDifferent(FitnessRules.Target target, int gene, int current, int bound, SplittableRandom random) {
+        return domains == null ? Chromosome.pickDifferentIndex(current, bound, random)
+                : domains.pickDifferent(target, gene, current, random);
+    }
+
+    private void move(Chromosome chromosome, int gene, int room, int time, int facilitator) {
+        add(chromosome.rooms()[gene], chromosome.times()[gene], chromosome.facilitators()[gene], -1);
+        chromosome.setGene(gene, room, time, facilitator);
+        add(room, time, facilitator, 1);
+    }
+
+    private void add(int room, int time, int facilitator, int count) {
+        roomTimeCounts[room * tables.numberOfTimes + time] += count;
+        facilitatorTimeCounts[facilitator * tables.numberOfTimes + time] += count;
+        facilitatorLoads[facilitator] += count;
+    }
+}
@@ -0,0 +1,46 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+
+//First-improvement hill climbing: samples random moves and applies every one that gains points, until
+//maxFailedMoves samples in a row have not, or the deadline.
+public final class HillClimbing implements LocalSearch {
+
+    //The deadline is read once per this many moves
+    private static final int MOVES_PER_CLOCK_READ = 16;
+
+    private final int maxFailedMoves;
+
+    public HillClimbing() {
+        this(GeneticConstants.HILL_CLIMBING_MAX_FAILED_MOVES);
+    }
+
+    public HillClimbing(int maxFailedMoves) {
+        if (maxFailedMoves < 1) {
+            throw new IllegalArgumentException("Need at least one move, was " + maxFailedMoves);
+        }
+        this.maxFailedMoves = maxFailedMoves;
+    }
+
+    @Override
+    public int improve(Chromosome chromosome, SplittableRandom random, long deadlineNanos) {
+        LocalSearchMove move = new LocalSearchMove();
+        int scoredMoves = 0;
+        int failedMoves = 0;
+        while (failedMoves < maxFailedMoves) {
+            if (scoredMoves % MOVES_PER_CLOCK_READ == 0 && System.nanoTime() >= deadlineNanos) {
+                break;
+            }
+            move.sample(chromosome, random);
+            scoredMoves++;
+            if (move.pointsDelta(chromosome) > 0) {
+                move.apply(chromosome);
+                failedMoves = 0;
+            } else {
+                failedMoves++;
+            }
+        }
+        chromosome.calculateFitness();
+        return scoredMoves;
+    }
+}
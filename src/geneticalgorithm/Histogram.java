@@ -0,0 +1,70 @@
+package geneticalgorithm;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Distribution of non-negative longs (latencies in nanoseconds, sizes in bytes) in power-of-two buckets: bucket b
+//counts the values with b significant bits, so a percentile is known to within a factor of two. Recording is a
+//few atomic adds and may happen from any number of threads, e.g. islands sharing one MetricsRegistry.
+public final class Histogram {
+    private static final int NUMBER_OF_BUCKETS = Long.SIZE;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long value) {
+        value = Math.max(0, value);
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    //An upper bound for the given percentile (0 to 100): the largest value the bucket holding it could contain
+    public long getPercentile(double percentile) {
+        long n = getCount();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= rank) {
+                return Math.min(getMax(), (1L << bucket) - 1);
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{" +
+                "count=" + getCount() +
+                ", mean=" + getMean() +
+                ", p50<=" + getPercentile(50) +
+                ", p99<=" + getPercentile(99) +
+                ", max=" + getMax() +
+                '}';
+    }
+}
@@ -0,0 +1,136 @@
+package geneticalgorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import records.ActivityRecord;
+import records.AmPmEnum;
+import records.RoomRecord;
+import records.TimeRecord;
+
+//Seeded synthetic problem instances shaped like the course data, at any number of activities.
+//Activities belong to a department whose facilitators are their preferred and other facilitators; enrollments
+//are skewed, most classes small and a few large, and room capacities follow the same distribution.
+//Some courses run as an A and a B section, and some pairs of those are linked like SLA100 and SLA191.
+//The same number of activities and seed always give the same instance.
+public final class InstanceGenerator {
+
+    //Crossover splits a genome strictly inside, so it needs at least 3 genes
+    public static final int MIN_ACTIVITIES = 3;
+
+    //Hourly slots from 8AM to 9PM; TimeRecord only has whole hours, so larger instances get more rooms, not times
+    private static final int FIRST_HOUR = 8;
+    private static final int NUMBER_OF_TIMES = 14;
+    //Rooms per activity and time slot, so a good schedule exists but rooms stay scarce
+    private static final double ROOM_SLACK = 1.3;
+    private static final double ACTIVITIES_PER_FACILITATOR = 3.5;
+    private static final int FACILITATORS_PER_DEPARTMENT = 6;
+    private static final double TWO_SECTION_PROBABILITY = 0.3;
+    //One section group per this many two-section courses, but at least one when there are two such courses
+    private static final int TWO_SECTION_COURSES_PER_GROUP = 20;
+    private static final double AVOIDANCE_ROOM_PROBABILITY = 0.1;
+    private static final double LOW_LOAD_EXEMPT_PROBABILITY = 0.05;
+    private static final String[] BUILDINGS = {"Beach", "Frank", "Loft", "Roman", "Slater", "Hale", "Morgan", "Tate"};
+
+    private InstanceGenerator() {
+    }
+
+    public static FitnessTables generate(int numberOfActivities, long seed) {
+        if (numberOfActivities < MIN_ACTIVITIES) {
+            throw new IllegalArgumentException("An instance needs at least " + MIN_ACTIVITIES
+                    + " activities for crossover, was " + numberOfActivities);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+
+        List<TimeRecord> times = new ArrayList<>(NUMBER_OF_TIMES);
+        for (int hour = FIRST_HOUR; hour < FIRST_HOUR + NUMBER_OF_TIMES; hour++) {
+            times.add(hour < 12 ? new TimeRecord(hour, AmPmEnum.AM)
+                    : new TimeRecord(hour == 12 ? 12 : hour - 12, AmPmEnum.PM));
+        }
+
+        int numberOfRooms = Math.max(2, (int) Math.ceil(ROOM_SLACK * numberOfActivities / NUMBER_OF_TIMES));
+        List<RoomRecord> rooms = new ArrayList<>(numberOfRooms);
+        List<String> avoidanceRooms = new ArrayList<>();
+        for (int room = 0; room < numberOfRooms; room++) {
+            String name = BUILDINGS[room % BUILDINGS.length] + " " + (101 + room / BUILDINGS.length);
+            //Rounded up to 5 seats, with some headroom over a typical class
+            int capacity = 5 * (int) Math.ceil(randomEnrollment(random) * (1 + random.nextDouble(0.5)) / 5);
+            rooms.add(new RoomRecord(name, capacity));
+            if (random.nextDouble() < AVOIDANCE_ROOM_PROBABILITY) {
+                avoidanceRooms.add(name);
+            }
+        }
+
+        int numberOfFacilitators = Math.max(2, (int) Math.round(numberOfActivities / ACTIVITIES_PER_FACILITATOR));
+        List<String> facilitators = new ArrayList<>(numberOfFacilitators);
+        List<String> lowLoadExempt = new ArrayList<>();
+        for (int facilitator = 0; facilitator < numberOfFacilitators; facilitator++) {
+            String name = String.format("F%04d", facilitator + 1);
+            facilitators.add(name);
+            if (random.nextDouble() < LOW_LOAD_EXEMPT_PROBABILITY) {
+                lowLoadExempt.add(name);
+            }
+        }
+        int numberOfDepartments = Math.max(1, numberOfFacilitators / FACILITATORS_PER_DEPARTMENT);
+
+        List<ActivityRecord> activities = new ArrayList<>(numberOfActivities);
+        List<String> twoSectionCourses = new ArrayList<>();
+        for (int course = 1; activities.size() < numberOfActivities; course++) {
+            int department = random.nextInt(numberOfDepartments);
+            String name = String.format("D%02d-%04d", department, course);
+            int enrollment = randomEnrollment(random);
+            List<String> departmentFacilitators = departmentFacilitators(facilitators, department,
+                    numberOfDepartments);
+            List<String> preferred = pickFacilitators(departmentFacilitators, 2 + random.nextInt(3), List.of(),
+                    random);
+            List<String> other = pickFacilitators(departmentFacilitators, 1 + random.nextInt(4), preferred, random);
+            if (numberOfActivities - activities.size() >= 2 && random.nextDouble() < TWO_SECTION_PROBABILITY) {
+                activities.add(new ActivityRecord(name + "A", enrollment, preferred, other));
+                activities.add(new ActivityRecord(name + "B", enrollment, preferred, other));
+                twoSectionCourses.add(name);
+            } else {
+                activities.add(new ActivityRecord(name, enrollment, preferred, other));
+            }
+        }
+
+        //Links random pairs of two-section courses, like SLA100 and SLA191
+        List<List<String>> linkedSections = new ArrayList<>();
+        int numberOfGroups = Math.min(twoSectionCourses.size() / 2,
+                Math.max(1, twoSectionCourses.size() / TWO_SECTION_COURSES_PER_GROUP));
+        for (int group = 0; group < numberOfGroups; group++) {
+            String course = twoSectionCourses.remove(random.nextInt(twoSectionCourses.size()));
+            String linkedCourse = twoSectionCourses.remove(random.nextInt(twoSectionCourses.size()));
+            linkedSections.add(List.of(course + "A", course + "B", linkedCourse + "A", linkedCourse + "B"));
+        }
+
+        return new FitnessTables(activities, rooms, times, facilitators, lowLoadExempt, avoidanceRooms,
+                linkedSections);
+    }
+
+    //Log-normal around 30 students, between 5 and 300
+    private static int randomEnrollment(SplittableRandom random) {
+        double enrollment = Math.exp(Math.log(30) + 0.7 * random.nextGaussian());
+        return (int) Math.max(5, Math.min(300, Math.round(enrollment)));
+    }
+
+    //Facilitators are split into contiguous departments; the last one takes the remainder
+    private static List<String> departmentFacilitators(List<String> facilitators, int department,
+                                                       int numberOfDepartments) {
+        int perDepartment = facilitators.size() / numberOfDepartments;
+        int from = department * perDepartment;
+        int to = department == numberOfDepartments - 1 ? facilitators.size() : from + perDepartment;
+        return facilitators.subList(from, to);
+    }
+
+    private static List<String> pickFacilitators(List<String> candidates, int count, List<String> excluded,
+                                                 SplittableRandom random) {
+        List<String> remaining = new ArrayList<>(candidates);
+        remaining.removeAll(excluded);
+        List<String> picked = new ArrayList<>(count);
+        while (picked.size() < count && !remaining.isEmpty()) {
+            picked.add(remaining.remove(random.nextInt(remaining.size())));
+        }
+        return List.copyOf(picked);
+    }
+}
@@ -0,0 +1,227 @@
+package geneticalgorithm;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+One connection between an IslandCoordinator and an IslandWorker, over TCP or a Unix domain socket.
+Frames, big-endian: the length of the rest of the frame, a message type byte, then the payload.
+HELLO, worker to coordinator: the protocol version.
+ASSIGN, coordinator to worker: the protocol version, island, number of islands, run seed, population size,
+migration interval, migrants per migration, number of activities (0 for the course data) and the
+InstanceGenerator seed.
+ELITES, worker to coordinator, and MIGRANTS, coordinator to the receiving worker: the migration round, the
+sender's generation count, the number of chromosomes and the chromosome records, best first, in the record
+format of PopulationCheckpoint.
+STOP, coordinator to worker: no payload.
+FINAL, worker to coordinator, answering STOP: the generation count and the worker's best chromosome.
+The channel is non-blocking; receive() returns null until a whole frame has arrived. While send() waits on a full
+send buffer it keeps reading, so two ends sending each other frames larger than their socket buffers both get
+through; what it read is returned by later receive() calls, and hasFrame() tells whether one is waiting there.
+ */
+final class IslandConnection implements AutoCloseable {
+
+    static final int VERSION = 1;
+    static final byte HELLO = 1;
+    static final byte ASSIGN = 2;
+    static final byte ELITES = 3;
+    static final byte MIGRANTS = 4;
+    static final byte STOP = 5;
+    static final byte FINAL = 6;
+
+    private static final int MAX_FRAME_BYTES = 64 << 20;
+
+    record Assignment(int island, int numberOfIslands, long seed, int populationSize, int migrationInterval,
+                      int migrantsPerMigration, int numberOfActivities, long instanceSeed) {
+
+        //Both ends build the instance from the assignment, so they agree on it without sending its data
+        FitnessTables tables() {
+            return numberOfActivities == 0 ? FitnessTables.DEFAULT
+                    : InstanceGenerator.generate(numberOfActivities, instanceSeed);
+        }
+    }
+
+    record Chromosomes(int round, int generation, List<Chromosome> chromosomes) {
+    }
+
+    private final SocketChannel channel;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(1 << 16);
+
+    IslandConnection(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        channel.configureBlocking(false);
+    }
+
+    //host:port for TCP, unix:PATH for a Unix domain socket
+    static SocketAddress parseAddress(String address) {
+        if (address.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected host:port or unix:PATH, was " + address);
+        }
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    static StandardProtocolFamily protocolFamily(SocketAddress address) {
+        return address instanceof UnixDomainSocketAddress ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET;
+    }
+
+    static IslandConnection connect(SocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(protocolFamily(address));
+        try {
+            channel.connect(address);
+            return new IslandConnection(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    //Starts a frame; the caller puts the payload and passes the buffer to send()
+    static ByteBuffer frame(byte type, int payloadBytes) {
+        return ByteBuffer.allocate(Integer.BYTES + 1 + payloadBytes)
+                .putInt(1 + payloadBytes)
+                .put(type);
+    }
+
+    static ByteBuffer hello() {
+        return frame(HELLO, Integer.BYTES).putInt(VERSION);
+    }
+
+    static ByteBuffer assign(Assignment assignment) {
+        return frame(ASSIGN, 7 * Integer.BYTES + 2 * Long.BYTES)
+                .putInt(VERSION)
+                .putInt(assignment.island())
+                .putInt(assignment.numberOfIslands())
+                .putLong(assignment.seed())
+                .putInt(assignment.populationSize())
+                .putInt(assignment.migrationInterval())
+                .putInt(assignment.migrantsPerMigration())
+                .putInt(assignment.numberOfActivities())
+                .putLong(assignment.instanceSeed());
+    }
+
+    static Assignment getAssignment(ByteBuffer payload) throws IOException {
+        requireVersion(payload.getInt());
+        return new Assignment(payload.getInt(), payload.getInt(), payload.getLong(), payload.getInt(),
+                payload.getInt(), payload.getInt(), payload.getInt(), payload.getLong());
+    }
+
+    static void requireVersion(int version) throws IOException {
+        if (version != VERSION) {
+            throw new IOException("Peer speaks island protocol " + version + ", expected " + VERSION);
+        }
+    }
+
+    static ByteBuffer chromosomes(byte type, FitnessTables tables, int round, int generation,
+                                  List<Chromosome> chromosomes) {
+        int bytesPerIndex = PopulationCheckpoint.bytesPerIndex(tables);
+        int payloadBytes = 3 * Integer.BYTES + chromosomes.size() * PopulationCheckpoint.recordBytes(tables);
+        ByteBuffer frame = frame(type, payloadBytes)
+                .putInt(round)
+                .putInt(generation)
+                .putInt(chromosomes.size());
+        for (Chromosome chromosome : chromosomes) {
+            PopulationCheckpoint.putChromosome(frame, chromosome, bytesPerIndex);
+        }
+        return frame;
+    }
+
+    static Chromosomes getChromosomes(ByteBuffer payload, FitnessTables tables) throws IOException {
+        int round = payload.getInt();
+        int generation = payload.getInt();
+        int count = payload.getInt();
+        if (count < 0 || payload.remaining() != count * PopulationCheckpoint.recordBytes(tables)) {
+            throw new IOException("Malformed chromosome message of " + count + " chromosomes");
+        }
+        int bytesPerIndex = PopulationCheckpoint.bytesPerIndex(tables);
+        List<Chromosome> chromosomes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            chromosomes.add(PopulationCheckpoint.getChromosome(payload, tables, bytesPerIndex));
+        }
+        return new Chromosomes(round, generation, chromosomes);
+    }
+
+    //Writes the whole frame. Whenever the socket's send buffer is full it reads what the peer sent meanwhile, and
+    //waits briefly only if there was nothing.
+    void send(ByteBuffer frame) throws IOException {
+        frame.flip();
+        while (frame.hasRemaining()) {
+            if (channel.write(frame) == 0 && readAvailable() == 0) {
+                LockSupport.parkNanos(50_000);
+            }
+        }
+    }
+
+    //The next complete frame, positioned at its type byte, or null if it has not fully arrived yet
+    ByteBuffer receive() throws IOException {
+        ByteBuffer frame = nextFrame();
+        if (frame != null) {
+            return frame;
+        }
+        readAvailable();
+        return nextFrame();
+    }
+
+    //Whether a complete frame was already read, e.g. by send(), so receive() returns it without the socket
+    //becoming readable again
+    boolean hasFrame() {
+        return readBuffer.position() >= Integer.BYTES
+                && readBuffer.position() >= Integer.BYTES + readBuffer.getInt(0);
+    }
+
+    //Reads what has arrived without waiting, into a larger buffer when the current one is full
+    private int readAvailable() throws IOException {
+        if (!readBuffer.hasRemaining()) {
+            readBuffer = ByteBuffer.allocate(2 * readBuffer.capacity()).put(readBuffer.flip());
+        }
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            throw new EOFException("The peer closed the connection");
+        }
+        return read;
+    }
+
+    private ByteBuffer nextFrame() throws IOException {
+        if (readBuffer.position() < Integer.BYTES) {
+            return null;
+        }
+        int length = readBuffer.getInt(0);
+        if (length < 1 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        int frameBytes = Integer.BYTES + length;
+        if (readBuffer.position() < frameBytes) {
+            if (readBuffer.capacity() < frameBytes) {
+                readBuffer = ByteBuffer.allocate(Math.max(frameBytes, 2 * readBuffer.capacity()))
+                        .put(readBuffer.flip());
+            }
+            return null;
+        }
+        readBuffer.flip();
+        ByteBuffer frame = ByteBuffer.allocate(length);
+        frame.put(readBuffer.slice(Integer.BYTES, length)).flip();
+        readBuffer.position(frameBytes).compact();
+        return frame;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
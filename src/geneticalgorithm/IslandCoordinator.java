@@ -0,0 +1,258 @@
+package geneticalgorithm;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//The hub of a distributed island run: waits for numberOfWorkers IslandWorker processes, gives each an island,
+//relays every island's elites to the next island of the ring, and keeps the global best. After every migration
+//round it checks the stop conditions, which are those of an AnytimeSolver plus a generation limit; the deadline
+//is also checked while waiting. Stagnation is counted in generations but only seen at round boundaries.
+//When the run stops every worker is told to stop and answers with its final best. The islands replay exactly
+//from the seed, but how many generations each runs past the stop decision depends on timing.
+//Workers on other machines connect over TCP; on one host a Unix domain socket (unix:PATH) works as well.
+public final class IslandCoordinator {
+
+    public enum StopReason {
+        GENERATION_LIMIT,
+        DEADLINE,
+        TARGET_REACHED,
+        STAGNATED
+    }
+
+    public record Result(Chromosome bestIndividual, int bestIsland, StopReason stopReason, int generations,
+                         long elapsedNanos) {
+    }
+
+    private static final long FINAL_TIMEOUT_NANOS = 60_000_000_000L;
+
+    private final SocketAddress address;
+    private final int numberOfWorkers;
+    private final long seed;
+    private int populationSize = GeneticConstants.INITIAL_POPULATION_SIZE;
+    private int migrationInterval = GeneticConstants.MIGRATION_INTERVAL;
+    private int migrantsPerMigration = GeneticConstants.MIGRANTS_PER_MIGRATION;
+    //0 for the course data, else an InstanceGenerator instance
+    private int numberOfActivities;
+    private long instanceSeed;
+    private int maxGenerations = GeneticConstants.NUMBER_OF_GENERATIONS;
+    private Duration budget;
+    private double targetFitness = AnytimeSolver.NO_TARGET;
+    private int stagnationWindow = AnytimeSolver.NO_STAGNATION_LIMIT;
+
+    private final List<IslandConnection> connections = new ArrayList<>();
+    //Migration round -> islands that have sent their elites for it
+    private final Map<Integer, Integer> roundReports = new HashMap<>();
+    private FitnessTables tables;
+    private Chromosome bestIndividual;
+    private int bestIsland = -1;
+    private int bestImprovedAtGeneration;
+    private int roundBestPoints = Integer.MIN_VALUE;
+
+    public IslandCoordinator(SocketAddress address, int numberOfWorkers, RandomProvider randomProvider) {
+        if (numberOfWorkers < 1) {
+            throw new IllegalArgumentException("Need at least one worker, was " + numberOfWorkers);
+        }
+        this.address = address;
+        this.numberOfWorkers = numberOfWorkers;
+        seed = randomProvider.getSeed();
+    }
+
+    public IslandCoordinator(String address, int numberOfWorkers, RandomProvider randomProvider) {
+        this(IslandConnection.parseAddress(address), numberOfWorkers, randomProvider);
+    }
+
+    public void setIslands(int populationSize, int migrationInterval, int migrantsPerMigration) {
+        if (populationSize < 2 || migrationInterval < 1 || migrantsPerMigration < 1) {
+            throw new IllegalArgumentException("Need populations of at least 2, a positive migration interval and "
+                    + "at least one migrant");
+        }
+        this.populationSize = populationSize;
+        this.migrationInterval = migrationInterval;
+        this.migrantsPerMigration = migrantsPerMigration;
+    }
+
+    //Every process builds the same InstanceGenerator instance instead of the course data
+    public void setGeneratedInstance(int numberOfActivities, long instanceSeed) {
+        if (numberOfActivities < InstanceGenerator.MIN_ACTIVITIES) {
+            throw new IllegalArgumentException("An instance needs at least " + InstanceGenerator.MIN_ACTIVITIES
+                    + " activities for crossover, was " + numberOfActivities);
+        }
+        this.numberOfActivities = numberOfActivities;
+        this.instanceSeed = instanceSeed;
+    }
+
+    //As for AnytimeSolver: a null budget, NO_TARGET and NO_STAGNATION_LIMIT leave a condition out
+    public void setStopConditions(int maxGenerations, Duration budget, double targetFitness, int stagnationWindow) {
+        this.maxGenerations = maxGenerations;
+        this.budget = budget;
+        this.targetFitness = targetFitness;
+        this.stagnationWindow = stagnationWindow;
+    }
+
+    public Result run() throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open(IslandConnection.protocolFamily(address));
+             Selector selector = Selector.open()) {
+            if (address instanceof UnixDomainSocketAddress unixAddress) {
+                Files.deleteIfExists(unixAddress.getPath());
+            }
+            server.bind(address);
+            for (int island = 0; island < numberOfWorkers; island++) {
+                IslandConnection connection = new IslandConnection(server.accept());
+                connections.add(connection);
+                connection.channel().register(selector, SelectionKey.OP_READ);
+                IslandConnection.Assignment assignment = new IslandConnection.Assignment(island, numberOfWorkers,
+                        seed, populationSize, migrationInterval, migrantsPerMigration, numberOfActivities,
+                        instanceSeed);
+                if (tables == null) {
+                    tables = assignment.tables();
+                }
+                connection.send(IslandConnection.assign(assignment));
+            }
+
+            long start = System.nanoTime();
+            long deadline = budget != null ? start + budget.toNanos() : Long.MAX_VALUE;
+            StopReason stopReason = null;
+            while (stopReason == null) {
+                long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+                if (remainingMillis <= 0) {
+                    stopReason = StopReason.DEADLINE;
+                    break;
+                }
+                awaitReadable(selector, deadline == Long.MAX_VALUE ? 0 : remainingMillis);
+                for (int island = 0; island < numberOfWorkers && stopReason == null; island++) {
+                    ByteBuffer message;
+                    while (stopReason == null && (message = receive(island)) != null) {
+                        stopReason = handle(island, message);
+                    }
+                }
+            }
+
+            for (IslandConnection connection : connections) {
+                connection.send(IslandConnection.frame(IslandConnection.STOP, 0));
+            }
+            int generations = awaitFinals(selector);
+            return new Result(bestIndividual, bestIsland, stopReason, generations, System.nanoTime() - start);
+        } finally {
+            for (IslandConnection connection : connections) {
+                connection.close();
+            }
+            if (address instanceof UnixDomainSocketAddress unixAddress) {
+                Files.deleteIfExists(unixAddress.getPath());
+            }
+        }
+    }
+
+    private ByteBuffer receive(int island) throws IOException {
+        try {
+            return connections.get(island).receive();
+        } catch (EOFException e) {
+            throw new IOException("Island " + island + " disconnected before the run stopped", e);
+        }
+    }
+
+    //The stop reason if this message completes a migration round that meets a stop condition
+    private StopReason handle(int island, ByteBuffer message) throws IOException {
+        byte type = message.get();
+        if (type == IslandConnection.HELLO) {
+            IslandConnection.requireVersion(message.getInt());
+            return null;
+        }
+        if (type != IslandConnection.ELITES) {
+            throw new IOException("Unexpected message type " + type + " from island " + island);
+        }
+        ByteBuffer payload = message.slice();
+        IslandConnection.Chromosomes elites = IslandConnection.getChromosomes(message, tables);
+        offerBest(island, elites.chromosomes());
+        if (numberOfWorkers > 1) {
+            connections.get((island + 1) % numberOfWorkers).send(
+                    IslandConnection.frame(IslandConnection.MIGRANTS, payload.remaining()).put(payload));
+        }
+
+        int reports = roundReports.merge(elites.round(), 1, Integer::sum);
+        if (reports < numberOfWorkers) {
+            return null;
+        }
+        roundReports.remove(elites.round());
+        int generation = elites.generation();
+        if (bestIndividual.getFitnessPoints() > roundBestPoints) {
+            roundBestPoints = bestIndividual.getFitnessPoints();
+            bestImprovedAtGeneration = generation;
+        }
+        if (bestIndividual.getFitness() >= targetFitness) {
+            return StopReason.TARGET_REACHED;
+        }
+        if (stagnationWindow != AnytimeSolver.NO_STAGNATION_LIMIT
+                && generation - bestImprovedAtGeneration >= stagnationWindow) {
+            return StopReason.STAGNATED;
+        }
+        return generation >= maxGenerations ? StopReason.GENERATION_LIMIT : null;
+    }
+
+    private void offerBest(int island, List<Chromosome> chromosomes) {
+        if (!chromosomes.isEmpty() && (bestIndividual == null
+                || chromosomes.get(0).getFitnessPoints() > bestIndividual.getFitnessPoints())) {
+            bestIndividual = chromosomes.get(0);
+            bestIsland = island;
+        }
+    }
+
+    //Collects every worker's final best, still taking in elites sent before the stop arrived.
+    //Returns the most generations any island ran.
+    private int awaitFinals(Selector selector) throws IOException {
+        boolean[] finished = new boolean[numberOfWorkers];
+        int remaining = numberOfWorkers;
+        int generations = 0;
+        long timeout = System.nanoTime() + FINAL_TIMEOUT_NANOS;
+        while (remaining > 0) {
+            long remainingMillis = (timeout - System.nanoTime()) / 1_000_000;
+            if (remainingMillis <= 0) {
+                throw new IOException(remaining + " islands did not answer the stop");
+            }
+            awaitReadable(selector, remainingMillis);
+            for (int island = 0; island < numberOfWorkers; island++) {
+                ByteBuffer message;
+                while (!finished[island] && (message = receive(island)) != null) {
+                    byte type = message.get();
+                    if (type != IslandConnection.ELITES && type != IslandConnection.FINAL) {
+                        throw new IOException("Unexpected message type " + type + " from island " + island);
+                    }
+                    IslandConnection.Chromosomes chromosomes = IslandConnection.getChromosomes(message, tables);
+                    offerBest(island, chromosomes.chromosomes());
+                    if (type == IslandConnection.FINAL) {
+                        finished[island] = true;
+                        remaining--;
+                        generations = Math.max(generations, chromosomes.generation());
+                    }
+                }
+            }
+        }
+        return generations;
+    }
+
+    //Waits until a worker's socket is readable, unless a send already read a whole frame of some worker. Every
+    //connection is polled afterwards, since such a frame does not make its socket readable.
+    private void awaitReadable(Selector selector, long timeoutMillis) throws IOException {
+        boolean framesWaiting = false;
+        for (IslandConnection connection : connections) {
+            framesWaiting |= connection.hasFrame();
+        }
+        if (framesWaiting) {
+            selector.selectNow();
+        } else {
+            selector.select(timeoutMillis);
+        }
+        selector.selectedKeys().clear();
+    }
+}
@@ -0,0 +1,163 @@
+package geneticalgorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+//Runs independent populations ("islands") on their own threads, each with its own random streams.
+//Every migrationInterval generations each island posts copies of its elites to the inbox of one other island
+//and then takes the batch addressed to it. Inboxes are lock-free queues; since every island knows which island
+//sends to it in each round, the exchange is deterministic and a run replays exactly from its seed.
+public class IslandModel {
+
+    public enum Topology {
+        //Island i always sends to island i + 1
+        RING,
+        //Every round a fresh random permutation, shared by all islands, decides who sends to whom
+        RANDOM
+    }
+
+    private record MigrationBatch(int round, List<Chromosome> migrants) {
+    }
+
+    private final List<Population> islands;
+    private final List<ConcurrentLinkedQueue<MigrationBatch>> inboxes;
+    private final int migrationInterval;
+    private final int migrantsPerMigration;
+    private final Topology topology;
+    private final RandomProvider randomProvider;
+
+    public IslandModel(int numberOfIslands, int migrationInterval, int migrantsPerMigration, Topology topology,
+                       RandomProvider randomProvider) {
+        if (numberOfIslands < 1 || migrationInterval < 1) {
+            throw new IllegalArgumentException("Need at least one island and a positive migration interval");
+        }
+        this.migrationInterval = migrationInterval;
+        this.migrantsPerMigration = migrantsPerMigration;
+        this.topology = topology;
+        this.randomProvider = randomProvider;
+        islands = new ArrayList<>(numberOfIslands);
+        inboxes = new ArrayList<>(numberOfIslands);
+        //Shared, so a schedule scored on one island is not scored again on another
+        FitnessCache fitnessCache = new FitnessCache();
+        for (int island = 0; island < numberOfIslands; island++) {
+            islands.add(new Population(randomProvider.derive(RandomProvider.Purpose.ISLAND, island), fitnessCache));
+            inboxes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    public IslandModel(RandomProvider randomProvider) {
+        this(GeneticConstants.NUMBER_OF_ISLANDS, GeneticConstants.MIGRATION_INTERVAL,
+                GeneticConstants.MIGRANTS_PER_MIGRATION, Topology.RING, randomProvider);
+    }
+
+    //Runs every island for the given number of generations, one thread per island.
+    //Islands are awaited in the order they finish: a failed island stops the run at once, and the interrupt
+    //releases the islands still waiting for its migrants.
+    public void runGenerations(int numberOfGenerations) {
+        ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+        try {
+            CompletionService<Void> runs = new ExecutorCompletionService<>(executor);
+            for (int island = 0; island < islands.size(); island++) {
+                final int islandIndex = island;
+                runs.submit(() -> runIsland(islandIndex, numberOfGenerations), null);
+            }
+            for (int island = 0; island < islands.size(); island++) {
+                runs.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the islands", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("An island failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runIsland(int island, int numberOfGenerations) {
+        Population population = islands.get(island);
+        for (int i = 0; i < numberOfGenerations; i++) {
+            population.runGeneration();
+            if (islands.size() > 1 && population.getGenerationCount() % migrationInterval == 0) {
+                migrate(island, population.getGenerationCount() / migrationInterval);
+            }
+        }
+    }
+
+    private void migrate(int island, int round) {
+        int[] destinations = destinationsFor(round);
+        inboxes.get(destinations[island]).offer(
+                new MigrationBatch(round, islands.get(island).getElites(migrantsPerMigration)));
+
+        MigrationBatch batch;
+        while ((batch = takeBatch(inboxes.get(island), round)) == null) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Island " + island + " was interrupted while waiting for migrants");
+            }
+            LockSupport.parkNanos(10_000);
+        }
+        islands.get(island).acceptMigrants(batch.migrants());
+    }
+
+    //With a random topology a faster sender's next-round batch can arrive before this round's batch
+    private static MigrationBatch takeBatch(ConcurrentLinkedQueue<MigrationBatch> inbox, int round) {
+        for (MigrationBatch batch : inbox) {
+            if (batch.round() == round) {
+                inbox.remove(batch);
+                return batch;
+            }
+        }
+        return null;
+    }
+
+    //destinations[i] is the island that island i sends to in this round; no island sends to itself
+    private int[] destinationsFor(int round) {
+        int numberOfIslands = islands.size();
+        int[] destinations = new int[numberOfIslands];
+        if (topology == Topology.RING) {
+            for (int island = 0; island < numberOfIslands; island++) {
+                destinations[island] = (island + 1) % numberOfIslands;
+            }
+            return destinations;
+        }
+        //A random cyclic order of the islands, each sending to the next one, is a permutation without fixed points
+        int[] order = new int[numberOfIslands];
+        for (int island = 0; island < numberOfIslands; island++) {
+            order[island] = island;
+        }
+        SplittableRandom random = randomProvider.streamFor(RandomProvider.Purpose.MIGRATION, round, 0);
+        for (int i = numberOfIslands - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        for (int i = 0; i < numberOfIslands; i++) {
+            destinations[order[i]] = order[(i + 1) % numberOfIslands];
+        }
+        return destinations;
+    }
+
+    public List<Population> getIslands() {
+        return islands;
+    }
+
+    public Population getBestIsland() {
+        return islands.stream()
+                .max(Comparator.comparingDouble(population -> population.getBestIndividual().getFitness()))
+                .orElseThrow();
+    }
+
+    public Chromosome getBestIndividual() {
+        return getBestIsland().getBestIndividual();
+    }
+}
@@ -0,0 +1,110 @@
+package geneticalgorithm;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.List;
+
+//One island of a distributed run, in its own process: connects to an IslandCoordinator, takes the island it is
+//assigned and runs its Population until the coordinator says stop. Every migration interval it sends copies of
+//its elites to the coordinator, which passes them on to the next island of the ring, and then takes the batch
+//of the same round from the previous island, as an IslandModel island does with its inbox. So the islands
+//replay exactly from the run seed, however the processes are scheduled. See IslandConnection for the protocol.
+public final class IslandWorker {
+
+    private static final long POLL_MILLIS = 100;
+
+    public record Result(int island, Chromosome bestIndividual, int generations) {
+    }
+
+    private final SocketAddress address;
+    //MIGRANTS frames received ahead of the round this island is in; a sender can be several rounds ahead
+    private final ArrayDeque<ByteBuffer> inbox = new ArrayDeque<>();
+    private boolean stopped;
+
+    public IslandWorker(SocketAddress address) {
+        this.address = address;
+    }
+
+    public IslandWorker(String address) {
+        this(IslandConnection.parseAddress(address));
+    }
+
+    public Result run() throws IOException {
+        try (IslandConnection connection = IslandConnection.connect(address);
+             Selector selector = Selector.open()) {
+            connection.channel().register(selector, SelectionKey.OP_READ);
+            connection.send(IslandConnection.hello());
+            IslandConnection.Assignment assignment = IslandConnection.getAssignment(awaitAssignment(connection,
+                    selector));
+            FitnessTables tables = assignment.tables();
+            Population population = new Population(
+                    new RandomProvider(assignment.seed()).derive(RandomProvider.Purpose.ISLAND, assignment.island()),
+                    new FitnessCache(), tables, assignment.populationSize());
+
+            while (!stopped) {
+                population.runGeneration();
+                receiveAvailable(connection);
+                int generation = population.getGenerationCount();
+                if (stopped || generation % assignment.migrationInterval() != 0) {
+                    continue;
+                }
+                int round = generation / assignment.migrationInterval();
+                connection.send(IslandConnection.chromosomes(IslandConnection.ELITES, tables, round, generation,
+                        population.getElites(assignment.migrantsPerMigration())));
+                if (assignment.numberOfIslands() == 1) {
+                    continue;
+                }
+                while (inbox.isEmpty() && !stopped) {
+                    selector.select(POLL_MILLIS);
+                    selector.selectedKeys().clear();
+                    receiveAvailable(connection);
+                }
+                if (!stopped) {
+                    IslandConnection.Chromosomes migrants = IslandConnection.getChromosomes(inbox.poll(), tables);
+                    if (migrants.round() != round) {
+                        throw new IOException("Expected migrants of round " + round + ", got round "
+                                + migrants.round());
+                    }
+                    population.acceptMigrants(migrants.chromosomes());
+                }
+            }
+
+            Chromosome best = population.getBestIndividual();
+            connection.send(IslandConnection.chromosomes(IslandConnection.FINAL, tables, 0,
+                    population.getGenerationCount(), List.of(best)));
+            return new Result(assignment.island(), best, population.getGenerationCount());
+        }
+    }
+
+    private ByteBuffer awaitAssignment(IslandConnection connection, Selector selector) throws IOException {
+        ByteBuffer message;
+        while ((message = connection.receive()) == null) {
+            selector.select(POLL_MILLIS);
+            selector.selectedKeys().clear();
+        }
+        byte type = message.get();
+        if (type != IslandConnection.ASSIGN) {
+            throw new IOException("Expected an assignment from the coordinator, got message type " + type);
+        }
+        return message;
+    }
+
+    //Queues the MIGRANTS frames that have arrived and notes a STOP, without waiting
+    private void receiveAvailable(IslandConnection connection) throws IOException {
+        ByteBuffer message;
+        while ((message = connection.receive()) != null) {
+            byte type = message.get();
+            if (type == IslandConnection.STOP) {
+                stopped = true;
+            } else if (type == IslandConnection.MIGRANTS) {
+                inbox.add(message);
+            } else {
+                throw new IOException("Unexpected message type " + type + " from the coordinator");
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+
+//A stage that improves a chromosome in place after ranking, see Population.setLocalSearch. Moves are scored
+//with the chromosome's occupancy tables (FitnessState), so a move costs a few table updates instead of an
+//evaluation. The search must stop by the deadline, a System.nanoTime() value, and leave the chromosome no worse
+//than it found it, with its fitness up to date.
+public interface LocalSearch {
+
+    //Returns the number of moves it scored
+    int improve(Chromosome chromosome, SplittableRandom random, long deadlineNanos);
+}
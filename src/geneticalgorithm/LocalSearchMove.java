@@ -0,0 +1,78 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+
+//One move of the local search neighbourhood: a new room, time or facilitator for one gene, or two genes
+//swapping their rooms and times. Reused: sample overwrites it.
+final class LocalSearchMove {
+
+    //Room, time and facilitator moves, then swaps, in the ratio of their fields
+    private static final int KINDS_OF_MOVES = 4;
+
+    int gene;
+    //-1 unless the move is a swap
+    int otherGene;
+    int room;
+    int time;
+    int facilitator;
+
+    void sample(Chromosome chromosome, SplittableRandom random) {
+        FitnessTables tables = chromosome.tables();
+        int[] rooms = chromosome.rooms();
+        int[] times = chromosome.times();
+        int[] facilitators = chromosome.facilitators();
+        gene = random.nextInt(rooms.length);
+        otherGene = -1;
+        room = rooms[gene];
+        time = times[gene];
+        facilitator = facilitators[gene];
+        switch (random.nextInt(KINDS_OF_MOVES)) {
+            case 0 -> room = Chromosome.pickDifferentIndex(room, tables.numberOfRooms, random);
+            case 1 -> time = Chromosome.pickDifferentIndex(time, tables.numberOfTimes, random);
+            case 2 -> facilitator = Chromosome.pickDifferentIndex(facilitator, tables.numberOfFacilitators, random);
+            default -> {
+                if (rooms.length > 1) {
+                    otherGene = Chromosome.pickDifferentIndex(gene, rooms.length, random);
+                    room = rooms[otherGene];
+                    time = times[otherGene];
+                }
+            }
+        }
+    }
+
+    //Points gained by the move; the chromosome is left as it was
+    int pointsDelta(Chromosome chromosome) {
+        FitnessState state = chromosome.fitnessState();
+        if (otherGene < 0) {
+            return state.pointsDeltaOf(gene, room, time, facilitator);
+        }
+        int before = state.getPoints();
+        apply(chromosome);
+        int after = state.getPoints();
+        apply(chromosome);
+        return after - before;
+    }
+
+    //A swap applied twice is undone
+    void apply(Chromosome chromosome) {
+        int[] rooms = chromosome.rooms();
+        int[] times = chromosome.times();
+        int[] facilitators = chromosome.facilitators();
+        if (otherGene < 0) {
+            chromosome.setGene(gene, room, time, facilitator);
+            return;
+        }
+        int geneRoom = rooms[gene];
+        int geneTime = times[gene];
+        chromosome.setGene(gene, rooms[otherGene], times[otherGene], facilitators[gene]);
+        chromosome.setGene(otherGene, geneRoom, geneTime, facilitators[otherGene]);
+    }
+
+    void copyFrom(LocalSearchMove other) {
+        gene = other.gene;
+        otherGene = other.otherGene;
+        room = other.room;
+        time = other.time;
+        facilitator = other.facilitator;
+    }
+}
@@ -0,0 +1,81 @@
+package geneticalgorithm;
+
+//In-place algorithms over primitive long arrays that never allocate, for the per-generation ranking keys
+final class LongArrays {
+
+    private LongArrays() {
+    }
+
+    //Introselect: rearranges [from, to) so values[k] is what it would be if the range were sorted, with nothing
+    //larger before it and nothing smaller after it. Quickselect around a median of three, falling back to
+    //sorting whatever range is left when partitioning keeps going badly.
+    static void select(long[] values, int from, int to, int k) {
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(to - from));
+        while (to - from > 3) {
+            if (depthLimit-- == 0) {
+                break;
+            }
+            long pivot = medianOfThree(values[from], values[from + (to - from) / 2], values[to - 1]);
+            //[from, less) < pivot, [less, i) == pivot, [greater, to) > pivot
+            int less = from;
+            int greater = to;
+            int i = from;
+            while (i < greater) {
+                if (values[i] < pivot) {
+                    swap(values, less++, i++);
+                } else if (values[i] > pivot) {
+                    swap(values, i, --greater);
+                } else {
+                    i++;
+                }
+            }
+            if (k < less) {
+                to = less;
+            } else if (k >= greater) {
+                from = greater;
+            } else {
+                return;
+            }
+        }
+        sort(values, from, to);
+    }
+
+    private static long medianOfThree(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    //Heapsort of [from, to) into ascending order
+    static void sort(long[] values, int from, int to) {
+        int count = to - from;
+        for (int parent = count / 2 - 1; parent >= 0; parent--) {
+            siftDown(values, from, parent, count);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            swap(values, from, from + end);
+            siftDown(values, from, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] values, int offset, int parent, int count) {
+        long value = values[offset + parent];
+        int child = 2 * parent + 1;
+        while (child < count) {
+            if (child + 1 < count && values[offset + child + 1] > values[offset + child]) {
+                child++;
+            }
+            if (values[offset + child] <= value) {
+                break;
+            }
+            values[offset + parent] = values[offset + child];
+            parent = child;
+            child = 2 * parent + 1;
+        }
+        values[offset + parent] = value;
+    }
+
+    static void swap(long[] values, int i, int j) {
+        long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
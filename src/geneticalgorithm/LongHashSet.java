@@ -0,0 +1,64 @@
+package geneticalgorithm;
+
+import java.util.Arrays;
+
+//Open-addressing set of longs with a fixed capacity, cleared and refilled without allocating.
+//Not thread safe for writes; concurrent contains calls are fine while nobody adds.
+final class LongHashSet {
+    private static final long EMPTY = 0;
+
+    private final long[] slots;
+    private final int slotMask;
+    private boolean containsEmpty;
+    private int size;
+
+    //Room for maxSize values at a load factor of at most one half
+    LongHashSet(int maxSize) {
+        int numberOfSlots = Integer.highestOneBit(Math.max(1, 2 * maxSize - 1)) << 1;
+        slots = new long[numberOfSlots];
+        slotMask = numberOfSlots - 1;
+    }
+
+    void clear() {
+        Arrays.fill(slots, EMPTY);
+        containsEmpty = false;
+        size = 0;
+    }
+
+    void add(long value) {
+        if (value == EMPTY) {
+            containsEmpty = true;
+            return;
+        }
+        if (2 * size >= slots.length) {
+            throw new IllegalStateException("The set is full at " + size + " values");
+        }
+        int slot = slotOf(value);
+        while (slots[slot] != EMPTY) {
+            if (slots[slot] == value) {
+                return;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        slots[slot] = value;
+        size++;
+    }
+
+    boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        int slot = slotOf(value);
+        while (slots[slot] != EMPTY) {
+            if (slots[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return false;
+    }
+
+    private int slotOf(long value) {
+        return (int) (value ^ (value >>> 32)) & slotMask;
+    }
+}
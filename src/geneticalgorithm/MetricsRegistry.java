@@ -0,0 +1,140 @@
+package geneticalgorithm;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+//Where Population.runGeneration spends its time, in numbers that can be read while a run goes on.
+//Per phase a latency histogram; breeding and evaluation run in parallel tasks, so theirs hold the time summed over
+//the tasks of a generation, the others wall-clock time. Also the chromosomes evaluated (cache hits included), the
+//bytes allocated per generation by the threads that ran it, and the selection pressure:
+//the selection intensity of culling, (mean of the survivors - mean before culling) / standard deviation before
+//culling, and the best survivor's mating advantage, its mating probability times the number of survivors
+//(1 would be no preference at all).
+//Every generation is also a GenerationEvent for Java Flight Recorder, whether or not a registry is attached.
+//One registry can be shared by several populations.
+public final class MetricsRegistry {
+
+    public enum Phase {
+        INITIAL_EVALUATION,
+        CULL,
+        //Wall time of the local search of the elites, when enabled
+        LOCAL_SEARCH,
+        MATING_PROBABILITIES,
+        //Parent selection, crossover and mutation
+        BREEDING,
+        EVALUATION,
+        GENERATION
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final Map<Phase, Histogram> phaseLatencies = new EnumMap<>(Phase.class);
+    private final Histogram allocatedBytes = new Histogram();
+    private final LongAdder evaluations = new LongAdder();
+    private final DoubleAdder selectionIntensitySum = new DoubleAdder();
+    private final DoubleAdder bestMatingAdvantageSum = new DoubleAdder();
+    private final LongAdder selections = new LongAdder();
+    private volatile double lastSelectionIntensity;
+    private volatile double lastBestMatingAdvantage;
+
+    public MetricsRegistry() {
+        for (Phase phase : Phase.values()) {
+            phaseLatencies.put(phase, new Histogram());
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        } catch (LinkageError | UnsupportedOperationException e) {
+            //No jdk.management module: allocation is not measured
+        }
+        return null;
+    }
+
+    //Bytes allocated so far by the calling thread, or 0 where the JVM cannot tell
+    static long currentThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    static boolean isAllocationMeasured() {
+        return THREADS != null;
+    }
+
+    void recordPhase(Phase phase, long nanos) {
+        phaseLatencies.get(phase).record(nanos);
+    }
+
+    void recordGeneration(long generationNanos, int numberOfEvaluations, long bytes, double selectionIntensity,
+                          double bestMatingAdvantage) {
+        recordPhase(Phase.GENERATION, generationNanos);
+        evaluations.add(numberOfEvaluations);
+        if (isAllocationMeasured()) {
+            allocatedBytes.record(bytes);
+        }
+        selectionIntensitySum.add(selectionIntensity);
+        bestMatingAdvantageSum.add(bestMatingAdvantage);
+        selections.increment();
+        lastSelectionIntensity = selectionIntensity;
+        lastBestMatingAdvantage = bestMatingAdvantage;
+    }
+
+    public Histogram getPhaseLatency(Phase phase) {
+        return phaseLatencies.get(phase);
+    }
+
+    //Empty where the JVM does not measure per-thread allocation
+    public Histogram getAllocatedBytesPerGeneration() {
+        return allocatedBytes;
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    //Chromosomes evaluated per second of generation wall-clock time
+    public double getEvaluationsPerSecond() {
+        long nanos = getPhaseLatency(Phase.GENERATION).getSum();
+        return nanos == 0 ? 0 : getEvaluations() * 1e9 / nanos;
+    }
+
+    public double getLastSelectionIntensity() {
+        return lastSelectionIntensity;
+    }
+
+    public double getMeanSelectionIntensity() {
+        long n = selections.sum();
+        return n == 0 ? 0 : selectionIntensitySum.sum() / n;
+    }
+
+    public double getLastBestMatingAdvantage() {
+        return lastBestMatingAdvantage;
+    }
+
+    public double getMeanBestMatingAdvantage() {
+        long n = selections.sum();
+        return n == 0 ? 0 : bestMatingAdvantageSum.sum() / n;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("MetricsRegistry{");
+        for (Phase phase : Phase.values()) {
+            builder.append("\n  ").append(phase).append(" ns: ").append(getPhaseLatency(phase));
+        }
+        return builder
+                .append("\n  allocated bytes per generation: ").append(allocatedBytes)
+                .append("\n  evaluations=").append(getEvaluations())
+                .append(", evaluationsPerSecond=").append(getEvaluationsPerSecond())
+                .append("\n  selectionIntensity=").append(getMeanSelectionIntensity())
+                .append(", bestMatingAdvantage=").append(getMeanBestMatingAdvantage())
+                .append("\n}")
+                .toString();
+    }
+}
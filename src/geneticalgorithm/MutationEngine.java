@@ -0,0 +1,102 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+
+//Mutates each (gene, field) position independently with probability mutationRate. Instead of one draw per
+//position it samples the gap to the next mutated position from a geometric distribution, so the cost follows
+//the number of mutations rather than the genome length.
+//UNIFORM mode draws the new value uniformly; GUIDED mode picks it against the chromosome's occupancy, see
+//GuidedMutation. Both draw from the caller's random only, so runs replay exactly either way.
+//Given a DomainIndex, either mode draws only from each gene's pruned domains.
+public final class MutationEngine {
+
+    public enum Mode {
+        UNIFORM,
+        GUIDED
+    }
+
+    public static final MutationEngine DEFAULT = new MutationEngine(GeneticConstants.MUTATION_RATE);
+    public static final MutationEngine GUIDED = new MutationEngine(GeneticConstants.MUTATION_RATE, Mode.GUIDED);
+
+    //Facilitator, room and time, in the order the fields of a gene are visited
+    private static final int FIELDS_PER_GENE = 3;
+
+    private final double mutationRate;
+    private final double logOfSurvivalRate;
+    private final Mode mode;
+    //Occupancy scratch of the guided mode, one per thread since engines are shared
+    private final ThreadLocal<GuidedMutation> guidedMutations = ThreadLocal.withInitial(GuidedMutation::new);
+
+    public MutationEngine(double mutationRate) {
+        this(mutationRate, Mode.UNIFORM);
+    }
+
+    public MutationEngine(double mutationRate, Mode mode) {
+        if (mutationRate < 0 || mutationRate > 1) {
+            throw new IllegalArgumentException("The mutation rate " + mutationRate + " is not a probability");
+        }
+        this.mutationRate = mutationRate;
+        this.logOfSurvivalRate = Math.log1p(-mutationRate);
+        this.mode = mode;
+    }
+
+    public double getMutationRate() {
+        return mutationRate;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void mutate(Chromosome chromosome, SplittableRandom random) {
+        mutate(chromosome, null, random);
+    }
+
+    //Domains may be null, for all of the values of the chromosome's tables
+    public void mutate(Chromosome chromosome, DomainIndex domains, SplittableRandom random) {
+        long numberOfPositions = (long) chromosome.rooms().length * FIELDS_PER_GENE;
+        long position = nextGap(random, numberOfPositions);
+        if (mode == Mode.GUIDED) {
+            if (position < numberOfPositions) {
+                mutateGuided(chromosome, domains, position, numberOfPositions, random);
+            }
+            return;
+        }
+        for (; position < numberOfPositions; position += 1 + nextGap(random, numberOfPositions)) {
+            int gene = (int) (position / FIELDS_PER_GENE);
+            switch ((int) (position % FIELDS_PER_GENE)) {
+                case 0 -> chromosome.mutateFacilitator(gene, domains, random);
+                case 1 -> chromosome.mutateRoom(gene, domains, random);
+                default -> chromosome.mutateTime(gene, domains, random);
+            }
+        }
+    }
+
+    //The occupancy is only counted for chromosomes that get at least one mutation
+    private void mutateGuided(Chromosome chromosome, DomainIndex domains, long firstPosition, long numberOfPositions,
+                              SplittableRandom random) {
+        GuidedMutation guidedMutation = guidedMutations.get();
+        guidedMutation.count(chromosome, domains);
+        for (long position = firstPosition; position < numberOfPositions;
+                position += 1 + nextGap(random, numberOfPositions)) {
+            int gene = (int) (position / FIELDS_PER_GENE);
+            switch ((int) (position % FIELDS_PER_GENE)) {
+                case 0 -> guidedMutation.mutateFacilitator(chromosome, gene, random);
+                case 1 -> guidedMutation.mutateRoom(chromosome, gene, random);
+                default -> guidedMutation.mutateTime(chromosome, gene, random);
+            }
+        }
+        guidedMutation.release(chromosome);
+    }
+
+    //Positions left untouched before the next mutation: P(gap = k) = (1 - rate)^k * rate.
+    //Capped at numberOfPositions, which already ends the genome: for tiny rates the quotient saturates to
+    //Long.MAX_VALUE, and adding to that would overflow into a negative position.
+    private long nextGap(SplittableRandom random, long numberOfPositions) {
+        if (mutationRate == 0) {
+            return numberOfPositions;
+        }
+        double uniform = 1.0 - random.nextDouble(); //(0, 1], so the log is finite
+        return Math.min((long) Math.floor(Math.log(uniform) / logOfSurvivalRate), numberOfPositions);
+    }
+}
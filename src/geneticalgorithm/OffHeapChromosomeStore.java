@@ -0,0 +1,111 @@
+package geneticalgorithm;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+//Genomes, fitness and mating probabilities of many chromosomes in native memory, outside the garbage collected
+//heap. A record is the rooms, then the times, then the facilitators of one chromosome, as ints.
+//Chromosomes are read and written through flyweights: a few reusable heap Chromosome objects that load() fills
+//from a record and store() writes back. Records may be accessed from several threads, as long as no two threads
+//write the same record. Uses the java.lang.foreign API, a preview API in Java 21 (--enable-preview).
+public final class OffHeapChromosomeStore implements AutoCloseable {
+
+    private final Arena arena;
+    private final int capacity;
+    private final int numberOfGenes;
+    private final long recordBytes;
+    private final MemorySegment genomes;
+    private final MemorySegment fitnessPoints;
+    private final MemorySegment matingProbabilities;
+    //One record, for swapping
+    private final MemorySegment swapSpace;
+
+    public OffHeapChromosomeStore(int capacity, int numberOfGenes) {
+        if (capacity < 1 || numberOfGenes < 1) {
+            throw new IllegalArgumentException("Need room for at least one chromosome with at least one gene");
+        }
+        this.capacity = capacity;
+        this.numberOfGenes = numberOfGenes;
+        recordBytes = 3L * numberOfGenes * Integer.BYTES;
+        arena = Arena.ofShared();
+        genomes = arena.allocate(recordBytes * capacity, Integer.BYTES);
+        fitnessPoints = arena.allocate((long) Integer.BYTES * capacity, Integer.BYTES);
+        matingProbabilities = arena.allocate((long) Double.BYTES * capacity, Double.BYTES);
+        swapSpace = arena.allocate(recordBytes, Integer.BYTES);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    //Overwrites the flyweight with the genome and fitness of a record, and returns it
+    public Chromosome load(int index, Chromosome flyweight) {
+        long offset = recordOffset(index);
+        MemorySegment.copy(genomes, ValueLayout.JAVA_INT, offset, flyweight.rooms(), 0, numberOfGenes);
+        offset += (long) numberOfGenes * Integer.BYTES;
+        MemorySegment.copy(genomes, ValueLayout.JAVA_INT, offset, flyweight.times(), 0, numberOfGenes);
+        offset += (long) numberOfGenes * Integer.BYTES;
+        MemorySegment.copy(genomes, ValueLayout.JAVA_INT, offset, flyweight.facilitators(), 0, numberOfGenes);
+        flyweight.genomeReplaced(getFitnessPoints(index));
+        return flyweight;
+    }
+
+    //Writes the genome and fitness of a chromosome to a record
+    public void store(int index, Chromosome chromosome) {
+        long offset = recordOffset(index);
+        MemorySegment.copy(chromosome.rooms(), 0, genomes, ValueLayout.JAVA_INT, offset, numberOfGenes);
+        offset += (long) numberOfGenes * Integer.BYTES;
+        MemorySegment.copy(chromosome.times(), 0, genomes, ValueLayout.JAVA_INT, offset, numberOfGenes);
+        offset += (long) numberOfGenes * Integer.BYTES;
+        MemorySegment.copy(chromosome.facilitators(), 0, genomes, ValueLayout.JAVA_INT, offset, numberOfGenes);
+        setFitnessPoints(index, chromosome.getFitnessPoints());
+    }
+
+    //Copies a record, genome and fitness, to another store or to another index of this one
+    public void copy(int index, OffHeapChromosomeStore target, int targetIndex) {
+        MemorySegment.copy(genomes, recordOffset(index), target.genomes, target.recordOffset(targetIndex), recordBytes);
+        target.setFitnessPoints(targetIndex, getFitnessPoints(index));
+    }
+
+    public void swap(int index, int otherIndex) {
+        int points = getFitnessPoints(index);
+        MemorySegment.copy(genomes, recordOffset(index), swapSpace, 0, recordBytes);
+        copy(otherIndex, this, index);
+        MemorySegment.copy(swapSpace, 0, genomes, recordOffset(otherIndex), recordBytes);
+        setFitnessPoints(otherIndex, points);
+    }
+
+    public int getFitnessPoints(int index) {
+        return fitnessPoints.getAtIndex(ValueLayout.JAVA_INT, checkIndex(index));
+    }
+
+    public void setFitnessPoints(int index, int points) {
+        fitnessPoints.setAtIndex(ValueLayout.JAVA_INT, checkIndex(index), points);
+    }
+
+    public double getMatingProbability(int index) {
+        return matingProbabilities.getAtIndex(ValueLayout.JAVA_DOUBLE, checkIndex(index));
+    }
+
+    public void setMatingProbability(int index, double probability) {
+        matingProbabilities.setAtIndex(ValueLayout.JAVA_DOUBLE, checkIndex(index), probability);
+    }
+
+    //Frees the native memory; the store must not be used afterwards
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private long recordOffset(int index) {
+        return checkIndex(index) * recordBytes;
+    }
+
+    private long checkIndex(int index) {
+        if (index < 0 || index >= capacity) {
+            throw new IndexOutOfBoundsException("Index " + index + " is outside a store of " + capacity);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,289 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+//The generation loop of Population over OffHeapChromosomeStores, for populations sized by RAM rather than by
+//what the garbage collector tolerates. On the heap there is only one primitive selection key per chromosome
+//and, per worker thread, a fixed set of flyweight chromosomes that breeding and evaluation load records into.
+//Culling copies the survivors into a second store that then swaps roles with the first.
+//Breeding tasks and their random streams are the same as in Population; a worker runs every
+//numberOfWorkers-th task, so a run still replays exactly from its seed whatever the number of cores.
+public class OffHeapPopulation implements AutoCloseable {
+
+    private int generationCount;
+    private OffHeapChromosomeStore store;
+    private OffHeapChromosomeStore cullingStore;
+    private int size;
+    private final long[] selectionKeys;
+    private final AliasSampler parentSampler;
+    private final GenerationStatistics statistics;
+    private final Worker[] workers;
+    private final FitnessCache fitnessCache;
+    private final RandomProvider randomProvider;
+    private final FitnessTables tables;
+
+    //What one worker thread reuses from task to task
+    private static final class Worker {
+        final Chromosome[] offspring = new Chromosome[2 * GeneticConstants.PAIRS_PER_BREEDING_TASK];
+        final Chromosome parent1;
+        final Chromosome parent2;
+        //Only used for the unpaired child when the number of offspring is odd
+        final Chromosome spareOffspring;
+        final BatchFitnessEvaluator evaluator;
+        final GenerationStatistics statistics = new GenerationStatistics();
+        int bestSlot;
+        int bestPoints;
+
+        Worker(FitnessTables tables) {
+            for (int i = 0; i < offspring.length; i++) {
+                offspring[i] = blankChromosome(tables);
+            }
+            parent1 = blankChromosome(tables);
+            parent2 = blankChromosome(tables);
+            spareOffspring = blankChromosome(tables);
+            evaluator = new BatchFitnessEvaluator(tables, offspring.length);
+        }
+
+        void startPhase() {
+            statistics.clear();
+            bestSlot = -1;
+        }
+
+        void record(int slot, int points) {
+            statistics.add(points);
+            if (bestSlot < 0 || points > bestPoints || points == bestPoints && slot < bestSlot) {
+                bestSlot = slot;
+                bestPoints = points;
+            }
+        }
+    }
+
+    public OffHeapPopulation(RandomProvider randomProvider, int populationSize) {
+        this(randomProvider, populationSize, new FitnessCache());
+    }
+
+    public OffHeapPopulation(RandomProvider randomProvider, int populationSize, FitnessCache fitnessCache) {
+        this(randomProvider, populationSize, fitnessCache, FitnessTables.DEFAULT);
+    }
+
+    //Schedules the instance the tables describe; a cache shared with other populations must be for the same one
+    public OffHeapPopulation(RandomProvider randomProvider, int populationSize, FitnessCache fitnessCache,
+                             FitnessTables tables) {
+        if (populationSize < 2) {
+            throw new IllegalArgumentException("A population needs at least 2 chromosomes, was " + populationSize);
+        }
+        this.randomProvider = randomProvider;
+        this.fitnessCache = fitnessCache;
+        this.tables = tables;
+        size = populationSize;
+        store = new OffHeapChromosomeStore(populationSize, tables.numberOfActivities);
+        cullingStore = new OffHeapChromosomeStore(populationSize, tables.numberOfActivities);
+        selectionKeys = new long[populationSize];
+        parentSampler = new AliasSampler(populationSize);
+        statistics = new GenerationStatistics();
+        workers = new Worker[Runtime.getRuntime().availableProcessors()];
+        for (int worker = 0; worker < workers.length; worker++) {
+            workers[worker] = new Worker(tables);
+        }
+        generationCount = 0;
+        generateInitialPopulation();
+    }
+
+    private static Chromosome blankChromosome(FitnessTables tables) {
+        int numberOfGenes = tables.numberOfActivities;
+        return new Chromosome(tables, new int[numberOfGenes], new int[numberOfGenes], new int[numberOfGenes]);
+    }
+
+    public long getSeed() {
+        return randomProvider.getSeed();
+    }
+
+    public void printBestIndividualInformation() {
+        System.out.println("_______________________________________________________");
+        System.out.println("Best Individual from generation: " + generationCount);
+        System.out.println(getBestIndividual());
+        System.out.println("Best Fitness Score of generation: " + statistics.getBestFitness());
+        System.out.println("Average Fitness Score of generation: " + getAverageFitness());
+        System.out.println("_______________________________________________________");
+    }
+
+    //A heap copy of the best chromosome
+    public Chromosome getBestIndividual() {
+        return store.load(0, blankChromosome(tables));
+    }
+
+    public int getGenerationCount() {
+        return generationCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public FitnessCache getFitnessCache() {
+        return fitnessCache;
+    }
+
+    //Live statistics of the current generation; read them, do not keep them across generations
+    public GenerationStatistics getStatistics() {
+        return statistics;
+    }
+
+    public double getAverageFitness() {
+        return statistics.getMeanFitness();
+    }
+
+    public void runGeneration() {
+        if (generationCount == 0) {
+            evaluateInitialPopulation();
+        }
+        cullHalfPopulation();
+
+        reproduceHalfPopulation();
+
+        generationCount++;
+    }
+
+    @Override
+    public void close() {
+        store.close();
+        cullingStore.close();
+    }
+
+    private void evaluateInitialPopulation() {
+        int chunkSize = workers[0].offspring.length;
+        int numberOfChunks = (size + chunkSize - 1) / chunkSize;
+        IntStream.range(0, workers.length).parallel().forEach(workerIndex -> {
+            Worker worker = workers[workerIndex];
+            worker.startPhase();
+            for (int chunk = workerIndex; chunk < numberOfChunks; chunk += workers.length) {
+                int firstSlot = chunk * chunkSize;
+                int count = Math.min(chunkSize, size - firstSlot);
+                for (int i = 0; i < count; i++) {
+                    store.load(firstSlot + i, worker.offspring[i]);
+                }
+                evaluateAndStore(worker, firstSlot, count);
+            }
+        });
+        statistics.clear();
+        mergeWorkers();
+    }
+
+    private void evaluateAndStore(Worker worker, int firstSlot, int count) {
+        worker.evaluator.evaluate(worker.offspring, 0, count, fitnessCache);
+        for (int i = 0; i < count; i++) {
+            store.store(firstSlot + i, worker.offspring[i]);
+            worker.record(firstSlot + i, worker.offspring[i].getFitnessPoints());
+        }
+    }
+
+    //Adds the workers' statistics and moves the best chromosome they saw to index 0 if it beats the one there
+    private void mergeWorkers() {
+        int bestSlot = -1;
+        int bestPoints = 0;
+        for (Worker worker : workers) {
+            statistics.addAll(worker.statistics);
+            if (worker.bestSlot >= 0 && (bestSlot < 0 || worker.bestPoints > bestPoints
+                    || worker.bestPoints == bestPoints && worker.bestSlot < bestSlot)) {
+                bestSlot = worker.bestSlot;
+                bestPoints = worker.bestPoints;
+            }
+        }
+        if (bestSlot > 0 && bestPoints > store.getFitnessPoints(0)) {
+            store.swap(0, bestSlot);
+        }
+    }
+
+    //As Population.cullHalfPopulation: introselect on the keys, the best stays at index 0
+    private void cullHalfPopulation() {
+        int numberOfSurvivors = size / 2;
+        selectionKeys[0] = 0;
+        for (int i = 1; i < size; i++) {
+            selectionKeys[i] = ((long) -store.getFitnessPoints(i) << 32) | i;
+        }
+        if (numberOfSurvivors > 1) {
+            LongArrays.select(selectionKeys, 1, size, numberOfSurvivors - 1);
+        }
+
+        for (int i = 0; i < numberOfSurvivors; i++) {
+            store.copy((int) selectionKeys[i], cullingStore, i);
+        }
+        for (int i = numberOfSurvivors; i < size; i++) {
+            statistics.remove((int) -(selectionKeys[i] >> 32));
+        }
+        OffHeapChromosomeStore culled = cullingStore;
+        cullingStore = store;
+        store = culled;
+
+        statistics.setRange(store.getFitnessPoints(0), store.getFitnessPoints(numberOfSurvivors - 1));
+        size = numberOfSurvivors;
+    }
+
+    private void reproduceHalfPopulation() {
+        assignChromosomesMatingProbabilities();
+        parentSampler.build(store::getMatingProbability, size);
+
+        int numberOfOffspring = size;
+        int numberOfPairs = (numberOfOffspring + 1) / 2;
+        int numberOfTasks = (numberOfPairs + GeneticConstants.PAIRS_PER_BREEDING_TASK - 1)
+                / GeneticConstants.PAIRS_PER_BREEDING_TASK;
+
+        IntStream.range(0, workers.length).parallel().forEach(workerIndex -> {
+            Worker worker = workers[workerIndex];
+            worker.startPhase();
+            for (int task = workerIndex; task < numberOfTasks; task += workers.length) {
+                breedPairs(
+                        worker,
+                        numberOfOffspring,
+                        task * GeneticConstants.PAIRS_PER_BREEDING_TASK,
+                        Math.min(numberOfPairs, (task + 1) * GeneticConstants.PAIRS_PER_BREEDING_TASK),
+                        randomProvider.streamFor(RandomProvider.Purpose.BREEDING, generationCount, task)
+                );
+            }
+        });
+        mergeWorkers();
+        size += numberOfOffspring;
+    }
+
+    //Parents are survivors in [0, size); offspring are written to the records from size onwards
+    private void breedPairs(Worker worker, int numberOfOffspring, int firstPair, int endPair,
+                            SplittableRandom random) {
+        for (int pair = firstPair; pair < endPair; pair++) {
+            Chromosome chromosome1 = store.load(parentSampler.sample(random), worker.parent1);
+            Chromosome chromosome2 = store.load(parentSampler.sample(random), worker.parent2);
+
+            Chromosome child1 = worker.offspring[2 * (pair - firstPair)];
+            boolean hasSecondChild = 2 * pair + 1 < numberOfOffspring;
+            Chromosome child2 = hasSecondChild ? worker.offspring[2 * (pair - firstPair) + 1] : worker.spareOffspring;
+
+            chromosome1.crossoverInto(chromosome2, child1, child2, random);
+            child1.attemptMutation(random);
+            if (hasSecondChild) {
+                child2.attemptMutation(random);
+            }
+        }
+        evaluateAndStore(worker, size + 2 * firstPair, Math.min(numberOfOffspring, 2 * endPair) - 2 * firstPair);
+    }
+
+    //SoftMax.normalize over the fitness records, shifted by the best fitness
+    private void assignChromosomesMatingProbabilities() {
+        double max = store.getFitnessPoints(0) / FitnessEvaluator.POINTS_PER_UNIT;
+        double totalExponentiation = 0;
+        for (int i = 0; i < size; i++) {
+            double exponentiation = Math.exp(store.getFitnessPoints(i) / FitnessEvaluator.POINTS_PER_UNIT - max);
+            store.setMatingProbability(i, exponentiation);
+            totalExponentiation += exponentiation;
+        }
+        for (int i = 0; i < size; i++) {
+            store.setMatingProbability(i, store.getMatingProbability(i) / totalExponentiation);
+        }
+    }
+
+    private void generateInitialPopulation() {
+        SplittableRandom random = randomProvider.streamFor(RandomProvider.Purpose.INITIAL_POPULATION);
+        for (int i = 0; i < size; i++) {
+            store.store(i, GeneticUtils.createRandomChromosome(tables, random));
+        }
+    }
+}
@@ -1,104 +1,520 @@
 package geneticalgorithm;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
-import records.ActivityRecord;
-import records.DataListManager;
-
+//Steady-state engine: the chromosome objects are allocated once, culled chromosomes are overwritten in place as
+//the next offspring, and culling permutes them into a second buffer that then swaps roles with the first.
+//Fitness, mating probabilities and selection keys live in preallocated primitive arrays.
+//The population is not kept sorted: culling selects the better half in linear time, and only the best
+//chromosome has a fixed place, at index 0. Statistics are updated as chromosomes are evaluated and culled.
 public class Population {
 
     private int generationCount;
-    private final List<Chromosome> population;
+    private Chromosome[] population;
+    private Chromosome[] cullingBuffer;
+    private int size;
+    //Only used for the unpaired child when the number of offspring is odd
+    private final Chromosome spareOffspring;
+    private final long[] selectionKeys;
+    private final double[] fitnessScores;
+    private final double[] matingProbabilities;
+    private final AliasSampler parentSampler;
+    private final GenerationStatistics statistics;
+    //Per breeding task, merged once all tasks are done
+    private final GenerationStatistics[] taskStatistics;
+    private final int[] taskBestOffspring;
+    private final BatchFitnessEvaluator[] taskEvaluators;
+    private final FitnessCache fitnessCache;
+    //Zobrist hashes of the survivors, for dropping duplicate offspring
+    private final LongHashSet survivorHashes;
+    private boolean dropDuplicateOffspring = GeneticConstants.DROP_DUPLICATE_OFFSPRING;
+    private MutationEngine mutationEngine = MutationEngine.DEFAULT;
+    private DomainIndex domainIndex;
+    //Whether the chromosomes were drawn at random rather than restored from a checkpoint
+    private final boolean drewInitialPopulation;
+    private LocalSearch localSearch;
+    private int localSearchElites;
+    private long localSearchBudgetNanos;
+    //Per elite, sized once in setLocalSearch
+    private int[] elitePointsBefore;
+    private long[] eliteAllocatedBytes;
+    private long localSearchDeadline;
+    private final IntConsumer eliteSearch = this::improveElite;
+    private final RandomProvider randomProvider;
+    private final FitnessTables tables;
+    private final GenerationTimer timer;
+    private MetricsRegistry metrics;
+    private RuleProfile ruleProfile;
 
     public Population() {
-        population = new ArrayList<>(GeneticConstants.INITIAL_POPULATION_SIZE + 10);
-        generationCount = 0;
-        generateInitialPopulation();
+        this(RandomProvider.withRandomSeed());
+    }
+
+    public Population(RandomProvider randomProvider) {
+        this(randomProvider, new FitnessCache());
+    }
+
+    //The cache may be shared with other populations
+    public Population(RandomProvider randomProvider, FitnessCache fitnessCache) {
+        this(randomProvider, fitnessCache, GeneticConstants.INITIAL_POPULATION_SIZE);
+    }
+
+    public Population(RandomProvider randomProvider, FitnessCache fitnessCache, int populationSize) {
+        this(randomProvider, fitnessCache, FitnessTables.DEFAULT, populationSize);
+    }
+
+    //Schedules the instance the tables describe; a cache shared with other populations must be for the same one
+    public Population(RandomProvider randomProvider, FitnessCache fitnessCache, FitnessTables tables,
+                      int populationSize) {
+        this(randomProvider, fitnessCache, tables, populationSize, null, 0);
+    }
+
+    //Continues from saved chromosomes, in their saved order, instead of a random initial population.
+    //See PopulationCheckpoint.
+    Population(RandomProvider randomProvider, FitnessCache fitnessCache, FitnessTables tables, int populationSize,
+               Chromosome[] savedChromosomes, int savedGenerationCount) {
+        if(populationSize < 2) {
+            throw new IllegalArgumentException("A population needs at least 2 chromosomes, was " + populationSize);
+        }
+        this.randomProvider = randomProvider;
+        this.fitnessCache = fitnessCache;
+        this.tables = tables;
+        size = populationSize;
+        population = new Chromosome[size];
+        cullingBuffer = new Chromosome[size];
+        selectionKeys = new long[size];
+        fitnessScores = new double[size];
+        matingProbabilities = new double[size];
+        parentSampler = new AliasSampler(Math.max(1, size));
+        statistics = new GenerationStatistics();
+        taskStatistics = new GenerationStatistics[numberOfBreedingTasks(size / 2)];
+        for(int task = 0; task < taskStatistics.length; task++) {
+            taskStatistics[task] = new GenerationStatistics();
+        }
+        taskBestOffspring = new int[taskStatistics.length];
+        taskEvaluators = new BatchFitnessEvaluator[taskStatistics.length];
+        for(int task = 0; task < taskEvaluators.length; task++) {
+            taskEvaluators[task] = new BatchFitnessEvaluator(tables, 2 * GeneticConstants.PAIRS_PER_BREEDING_TASK);
+        }
+        survivorHashes = new LongHashSet(size);
+        timer = new GenerationTimer(taskStatistics.length);
+        drewInitialPopulation = savedChromosomes == null;
+        if(savedChromosomes == null) {
+            generationCount = 0;
+            generateInitialPopulation();
+        } else {
+            if(savedChromosomes.length > size) {
+                throw new IllegalArgumentException("Expected at most " + size + " chromosomes, got "
+                        + savedChromosomes.length);
+            }
+            size = savedChromosomes.length;
+            System.arraycopy(savedChromosomes, 0, population, 0, size);
+            generationCount = savedGenerationCount;
+            if(generationCount > 0) {
+                recalculateStatistics();
+            }
+        }
+        spareOffspring = size > 0 ? population[0].copy() : null;
+    }
+
+    public long getSeed() {
+        return randomProvider.getSeed();
     }
 
     public void printBestIndividualInformation() {
         System.out.println("_______________________________________________________");
         System.out.println("Best Individual from generation: " + generationCount);
-        System.out.println(population.get(0));
-        System.out.println("Best Fitness Score of generation: " + population.get(0).getFitness());
+        System.out.println(population[0]);
+        System.out.println("Best Fitness Score of generation: " + population[0].getFitness());
         System.out.println("Average Fitness Score of generation: " + getAverageFitness());
         System.out.println("_______________________________________________________");
     }
 
     public Chromosome getBestIndividual() {
-        return population.get(0);
+        return population[0];
+    }
+
+    public int getGenerationCount() {
+        return generationCount;
+    }
+
+    //The live chromosomes, index 0 being the best once evaluated; for writing checkpoints
+    int size() {
+        return size;
+    }
+
+    FitnessTables tables() {
+        return tables;
+    }
+
+    //The population size it was created with; size() is that or half of it, depending on the phase
+    int capacity() {
+        return population.length;
+    }
+
+    Chromosome chromosomeAt(int index) {
+        return population[index];
+    }
+
+    public FitnessCache getFitnessCache() {
+        return fitnessCache;
+    }
+
+    //When enabled, offspring identical to a survivor are bred again instead of taking up a slot
+    public void setDropDuplicateOffspring(boolean dropDuplicateOffspring) {
+        this.dropDuplicateOffspring = dropDuplicateOffspring;
+    }
+
+    //E.g. MutationEngine.GUIDED, for conflict-aware mutation of the offspring
+    public void setMutationEngine(MutationEngine mutationEngine) {
+        this.mutationEngine = Objects.requireNonNull(mutationEngine);
+    }
+
+    public MutationEngine getMutationEngine() {
+        return mutationEngine;
+    }
+
+    //Initialization and mutation draw only from the domains; null draws from all values again. Set before the
+    //first generation, a random initial population is drawn again from the domains.
+    public void setDomainIndex(DomainIndex domainIndex) {
+        if(domainIndex != null && domainIndex.tables() != tables) {
+            throw new IllegalArgumentException("The domain index is for another instance than this population");
+        }
+        this.domainIndex = domainIndex;
+        if(generationCount == 0 && drewInitialPopulation) {
+            generateInitialPopulation();
+        }
+    }
+
+    public DomainIndex getDomainIndex() {
+        return domainIndex;
+    }
+
+    //After culling, the search improves the best numberOfElites survivors in place, in parallel, within the
+    //budget of wall time per generation. Null turns it off. The budget makes runs depend on timing, so a
+    //seeded run replays exactly only while the search stops on its own bounds first.
+    public void setLocalSearch(LocalSearch localSearch, int numberOfElites, Duration budgetPerGeneration) {
+        if(localSearch != null && (numberOfElites < 1 || budgetPerGeneration.isNegative())) {
+            throw new IllegalArgumentException("Need at least one elite and a budget of at least 0");
+        }
+        this.localSearch = localSearch;
+        localSearchElites = numberOfElites;
+        localSearchBudgetNanos = localSearch != null ? budgetPerGeneration.toNanos() : 0;
+        elitePointsBefore = localSearch != null ? new int[numberOfElites] : null;
+        eliteAllocatedBytes = localSearch != null ? new long[numberOfElites] : null;
+    }
+
+    public void setLocalSearch(LocalSearch localSearch) {
+        setLocalSearch(localSearch, GeneticConstants.LOCAL_SEARCH_ELITES,
+                Duration.ofMillis(GeneticConstants.LOCAL_SEARCH_BUDGET_MILLIS));
+    }
+
+    public LocalSearch getLocalSearch() {
+        return localSearch;
+    }
+
+    //Null detaches the registry; the GenerationEvents for Flight Recorder are emitted either way
+    public void setMetricsRegistry(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metrics;
+    }
+
+    //Records every chromosome evaluated from now on; null detaches it. Recording scores each one again.
+    public void setRuleProfile(RuleProfile ruleProfile) {
+        if(ruleProfile != null && ruleProfile.tables() != tables) {
+            throw new IllegalArgumentException("The rule profile is for another instance than this population");
+        }
+        this.ruleProfile = ruleProfile;
     }
+
+    public RuleProfile getRuleProfile() {
+        return ruleProfile;
+    }
+
+    //Live statistics of the current generation; read them, do not keep them across generations
+    public GenerationStatistics getStatistics() {
+        return statistics;
+    }
+
+    //Copies of the best chromosomes, best first, safe to hand to another thread
+    public List<Chromosome> getElites(int count) {
+        int numberOfElites = Math.min(count, size);
+        List<Chromosome> elites = new ArrayList<>(numberOfElites);
+        if(numberOfElites == 0) {
+            return elites;
+        }
+        fillSelectionKeys(0);
+        LongArrays.select(selectionKeys, 0, size, numberOfElites - 1);
+        LongArrays.sort(selectionKeys, 0, numberOfElites);
+        for(int i = 0; i < numberOfElites; i++) {
+            elites.add(population[(int) selectionKeys[i]].copy());
+        }
+        return elites;
+    }
+
+    //Evaluated chromosomes from elsewhere replace the worst of this population
+    public void acceptMigrants(List<Chromosome> migrants) {
+        int numberOfMigrants = Math.min(migrants.size(), size);
+        if(numberOfMigrants == 0) {
+            return;
+        }
+        fillSelectionKeys(0);
+        LongArrays.select(selectionKeys, 0, size, size - numberOfMigrants);
+        for(int i = 0; i < numberOfMigrants; i++) {
+            population[(int) selectionKeys[size - numberOfMigrants + i]] = migrants.get(i);
+        }
+        recalculateStatistics();
+    }
+
     public double getAverageFitness() {
-        return population
-                .stream()
-                .mapToDouble(Chromosome::getFitness)
-                .sum() / population.size();
+        return statistics.getMeanFitness();
     }
 
     public void runGeneration() {
+        timer.start(metrics);
         if(generationCount == 0) {
-            rankInitialPopulation();
+            evaluateInitialPopulation();
+            timer.addEvaluations(size);
+            timer.endPhase(MetricsRegistry.Phase.INITIAL_EVALUATION);
         }
         cullHalfPopulation();
+        timer.endPhase(MetricsRegistry.Phase.CULL);
+        if(localSearch != null) {
+            improveElites();
+            timer.endPhase(MetricsRegistry.Phase.LOCAL_SEARCH);
+        }
 
         reproduceHalfPopulation();
 
-        rankPopulation();
-
+        timer.finish(metrics, generationCount, getSeed(), statistics);
         generationCount++;
     }
 
+    private static int numberOfBreedingTasks(int numberOfOffspring) {
+        int numberOfPairs = (numberOfOffspring + 1) / 2;
+        return (numberOfPairs + GeneticConstants.PAIRS_PER_BREEDING_TASK - 1)
+                / GeneticConstants.PAIRS_PER_BREEDING_TASK;
+    }
+
+    //Breeding is split into fixed-size tasks of pairs, each overwriting its own culled slots with offspring and
+    //evaluating them as one batch. A task's random stream depends only on the generation and task number, so
+    //results do not depend on threads.
     private void reproduceHalfPopulation() {
         assignChromosomesMatingProbabilities();
-        ProbabilityDistributor<Chromosome> probabilityDistributor = new ProbabilityDistributor<>(population);
+        parentSampler.build(matingProbabilities, size);
+        timer.setBestMatingAdvantage(matingProbabilities[0] * size);
+        timer.endPhase(MetricsRegistry.Phase.MATING_PROBABILITIES);
+        if(dropDuplicateOffspring) {
+            survivorHashes.clear();
+            for(int i = 0; i < size; i++) {
+                survivorHashes.add(population[i].getZobristHash());
+            }
+        }
+
+        int numberOfOffspring = size;
+        int numberOfPairs = (numberOfOffspring + 1) / 2;
+        int numberOfTasks = numberOfBreedingTasks(numberOfOffspring);
+
+        timer.pauseAllocation();
+        IntStream.range(0, numberOfTasks).parallel().forEach(task -> breedPairs(
+                task,
+                numberOfOffspring,
+                task * GeneticConstants.PAIRS_PER_BREEDING_TASK,
+                Math.min(numberOfPairs, (task + 1) * GeneticConstants.PAIRS_PER_BREEDING_TASK),
+                randomProvider.streamFor(RandomProvider.Purpose.BREEDING, generationCount, task)
+        ));
+        timer.resumeAllocation();
+        timer.addEvaluations(numberOfOffspring);
+
+        //The first of the fittest offspring takes index 0 if it beats the best survivor
+        int bestOffspring = -1;
+        for(int task = 0; task < numberOfTasks; task++) {
+            statistics.addAll(taskStatistics[task]);
+            int taskBest = taskBestOffspring[task];
+            if(taskBest >= 0 && (bestOffspring < 0
+                    || population[taskBest].getFitnessPoints() > population[bestOffspring].getFitnessPoints())) {
+                bestOffspring = taskBest;
+            }
+        }
+        if(bestOffspring >= 0 && population[bestOffspring].getFitnessPoints() > population[0].getFitnessPoints()) {
+            swap(population, 0, bestOffspring);
+        }
+        size += numberOfOffspring;
+    }
+
+    //Parents are survivors in [0, size); offspring overwrite the culled chromosomes from size onwards
+    private void breedPairs(int task, int numberOfOffspring, int firstPair, int endPair, SplittableRandom random) {
+        long breedingStart = System.nanoTime();
+        long allocationStart = timer.taskAllocationStart();
+        GenerationStatistics offspringStatistics = taskStatistics[task];
+        offspringStatistics.clear();
+        int bestOffspring = -1;
+        for(int pair = firstPair; pair < endPair; pair++) {
+            Chromosome child1 = population[size + 2 * pair];
+            boolean hasSecondChild = 2 * pair + 1 < numberOfOffspring;
+            Chromosome child2 = hasSecondChild ? population[size + 2 * pair + 1] : spareOffspring;
+
+            int attempt = 0;
+            do {
+                Chromosome chromosome1 = population[parentSampler.sample(random)];
+                Chromosome chromosome2 = population[parentSampler.sample(random)];
+                chromosome1.crossoverInto(chromosome2, child1, child2, random);
+                mutationEngine.mutate(child1, domainIndex, random);
+                if(hasSecondChild) {
+                    mutationEngine.mutate(child2, domainIndex, random);
+                }
+            } while(dropDuplicateOffspring && attempt++ < GeneticConstants.MAX_DUPLICATE_RETRIES
+                    && (isSurvivor(child1) || hasSecondChild && isSurvivor(child2)));
+        }
+
+        int firstSlot = size + 2 * firstPair;
+        int endSlot = size + Math.min(numberOfOffspring, 2 * endPair);
+        long evaluationStart = System.nanoTime();
+        taskEvaluators[task].evaluate(population, firstSlot, endSlot, fitnessCache);
+        RuleProfile profile = ruleProfile;
+        if(profile != null) {
+            for(int slot = firstSlot; slot < endSlot; slot++) {
+                profile.record(population[slot]);
+            }
+        }
+        for(int slot = firstSlot; slot < endSlot; slot++) {
+            offspringStatistics.add(population[slot].getFitnessPoints());
+            if(bestOffspring < 0
+                    || population[slot].getFitnessPoints() > population[bestOffspring].getFitnessPoints()) {
+                bestOffspring = slot;
+            }
+        }
+        taskBestOffspring[task] = bestOffspring;
+        timer.recordTask(task, breedingStart, evaluationStart, System.nanoTime(), allocationStart);
+    }
 
-        int targetPopulation = population.size() * 2;
-        while(population.size() != targetPopulation) {
-            probabilityDistributor.restoreRemoved();
+    //Each elite is searched with its own random stream; the shared deadline bounds the whole stage
+    private void improveElites() {
+        int numberOfElites = Math.min(localSearchElites, size);
+        fillSelectionKeys(0);
+        LongArrays.select(selectionKeys, 0, size, numberOfElites - 1);
+        for(int i = 0; i < numberOfElites; i++) {
+            elitePointsBefore[i] = population[(int) selectionKeys[i]].getFitnessPoints();
+        }
+        localSearchDeadline = System.nanoTime() + localSearchBudgetNanos;
+        timer.pauseAllocation();
+        IntStream.range(0, numberOfElites).parallel().forEach(eliteSearch);
+        timer.resumeAllocation();
 
-            Chromosome chromosome1 = probabilityDistributor.pickAndRemove(0);
-            Chromosome chromosome2 = probabilityDistributor.pickAndRemove(1);
+        int best = 0;
+        for(int i = 0; i < numberOfElites; i++) {
+            timer.addTaskAllocation(eliteAllocatedBytes[i]);
+            int index = (int) selectionKeys[i];
+            Chromosome elite = population[index];
+            statistics.remove(elitePointsBefore[i]);
+            statistics.add(elite.getFitnessPoints());
+            fitnessCache.store(elite.getZobristHash(), elite.getFitnessPoints());
+            if(elite.getFitnessPoints() > population[best].getFitnessPoints()) {
+                best = index;
+            }
+        }
+        swap(population, 0, best);
+    }
 
-            List<Chromosome> offspring = chromosome1.crossoverWith(chromosome2);
+    //The elite at selectionKeys[i]; like a breeding task it measures its own allocation
+    private void improveElite(int i) {
+        long allocationStart = timer.taskAllocationStart();
+        localSearch.improve(population[(int) selectionKeys[i]],
+                randomProvider.streamFor(RandomProvider.Purpose.LOCAL_SEARCH, generationCount, i), localSearchDeadline);
+        eliteAllocatedBytes[i] = timer.taskAllocatedSince(allocationStart);
+    }
+
+    private boolean isSurvivor(Chromosome chromosome) {
+        return survivorHashes.contains(chromosome.getZobristHash());
+    }
 
-            offspring.forEach(Chromosome::attemptMutation);
-            population.addAll(offspring);
+    private void evaluateInitialPopulation() {
+        Arrays.stream(population, 0, size).parallel().forEach(chromosome -> chromosome.calculateFitness(fitnessCache));
+        if(ruleProfile != null) {
+            for(int i = 0; i < size; i++) {
+                ruleProfile.record(population[i]);
+            }
         }
+        recalculateStatistics();
     }
 
-    private void rankInitialPopulation() {
-        population.parallelStream().forEach(Chromosome::calculateFitness);
-        population.sort(Comparator.comparingDouble(Chromosome::getFitness).reversed());
+    //Full pass, only needed when chromosomes were replaced from outside the generation loop
+    private void recalculateStatistics() {
+        statistics.clear();
+        int best = 0;
+        for(int i = 0; i < size; i++) {
+            statistics.add(population[i].getFitnessPoints());
+            if(population[i].getFitnessPoints() > population[best].getFitnessPoints()) {
+                best = i;
+            }
+        }
+        swap(population, 0, best);
     }
-    private void rankPopulation() {
-        population.subList(population.size() / 2, population.size())
-                .parallelStream()
-                .forEach(Chromosome::calculateFitness);
-        population.sort(Comparator.comparingDouble(Chromosome::getFitness).reversed());
+
+    //Negated fitness in the high half and position in the low half, so the smallest keys are the fittest
+    private void fillSelectionKeys(int from) {
+        for(int i = from; i < size; i++) {
+            selectionKeys[i] = ((long) -population[i].getFitnessPoints() << 32) | i;
+        }
     }
 
+    //Keeps the better half: introselect partitions the keys around the median instead of sorting them.
+    //The best chromosome is at index 0 already, so it is left out of the selection and stays there.
+    //The culled chromosomes stay in the array, after size, to be recycled as offspring.
     private void cullHalfPopulation() {
-        int cutoffIndex = population.size() / 2;
-        population.subList(cutoffIndex, population.size()).clear();
+        double meanBefore = statistics.getMeanFitness();
+        double deviationBefore = Math.sqrt(statistics.getFitnessVariance());
+        int numberOfSurvivors = size / 2;
+        selectionKeys[0] = 0;
+        fillSelectionKeys(1);
+        if(numberOfSurvivors > 1) {
+            LongArrays.select(selectionKeys, 1, size, numberOfSurvivors - 1);
+        }
+
+        for(int i = 0; i < size; i++) {
+            cullingBuffer[i] = population[(int) selectionKeys[i]];
+        }
+        Chromosome[] culled = cullingBuffer;
+        cullingBuffer = population;
+        population = culled;
+
+        for(int i = numberOfSurvivors; i < size; i++) {
+            statistics.remove(population[i].getFitnessPoints());
+        }
+        statistics.setRange(population[0].getFitnessPoints(), population[numberOfSurvivors - 1].getFitnessPoints());
+        size = numberOfSurvivors;
+        timer.setSelectionIntensity(
+                deviationBefore > 0 ? (statistics.getMeanFitness() - meanBefore) / deviationBefore : 0);
+    }
+
+    private static void swap(Chromosome[] chromosomes, int i, int j) {
+        Chromosome chromosome = chromosomes[i];
+        chromosomes[i] = chromosomes[j];
+        chromosomes[j] = chromosome;
     }
 
     private void assignChromosomesMatingProbabilities() {
-        List<Double> normalizedFitnessScores = SoftMax.normalize(
-                population.stream().map(Chromosome::getFitness).toList()
-        );
+        for(int i = 0; i < size; i++) {
+            fitnessScores[i] = population[i].getFitness();
+        }
+        SoftMax.normalize(fitnessScores, matingProbabilities, size);
 
-        for(int i = 0; i < normalizedFitnessScores.size(); i++) {
-            population.get(i).setMatingProbability(normalizedFitnessScores.get(i));
+        for(int i = 0; i < size; i++) {
+            population[i].setMatingProbability(matingProbabilities[i]);
         }
     }
 
     private void generateInitialPopulation() {
-        for(int i = 0; i < GeneticConstants.INITIAL_POPULATION_SIZE; i++) {
-            List<Gene> geneList = new ArrayList<>();
-            for(ActivityRecord activity : DataListManager.ACTIVITIES) {
-                geneList.add(GeneticUtils.createRandomGene(activity));
-            }
-            population.add(new Chromosome(geneList));
+        SplittableRandom random = randomProvider.streamFor(RandomProvider.Purpose.INITIAL_POPULATION);
+        for(int i = 0; i < size; i++) {
+            population[i] = domainIndex == null ? GeneticUtils.createRandomChromosome(tables, random)
+                    : GeneticUtils.createRandomChromosome(domainIndex, random);
         }
     }
 
@@ -0,0 +1,186 @@
+package geneticalgorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*
+Binary checkpoint of a Population, big-endian:
+Header: magic "GACP", format version, generation count, seed, population size, then the GeneticConstants and
+data sizes a resumed run must share with the saved one (mutation rate, genes, pairs per breeding task, rooms,
+times, facilitators), the bytes per index and the number of chromosomes.
+Records, one per chromosome in population order: the room, time and facilitator indices of every gene, each
+bytesPerIndex wide, then the fitness in points as an int.
+Resuming restores the chromosomes in their saved order and the random streams are keyed by seed and
+generation, so a resumed run continues exactly as the original would have.
+ */
+public final class PopulationCheckpoint {
+
+    private static final int MAGIC = 0x47414350;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES + Double.BYTES + 7 * Integer.BYTES;
+
+    private PopulationCheckpoint() {
+    }
+
+    static int bytesPerIndex(FitnessTables tables) {
+        int largestIndex = Math.max(tables.numberOfRooms, Math.max(tables.numberOfTimes, tables.numberOfFacilitators))
+                - 1;
+        if (largestIndex <= 0xFF) {
+            return 1;
+        }
+        return largestIndex <= 0xFFFF ? 2 : 4;
+    }
+
+    static int encodedSize(FitnessTables tables, int numberOfChromosomes) {
+        return HEADER_BYTES + numberOfChromosomes * recordBytes(tables);
+    }
+
+    //The bytes of one chromosome record, see putChromosome
+    static int recordBytes(FitnessTables tables) {
+        return 3 * tables.numberOfActivities * bytesPerIndex(tables) + Integer.BYTES;
+    }
+
+    //Encodes the population into the buffer, which needs encodedSize(tables, population.size()) bytes remaining
+    static void encode(Population population, ByteBuffer buffer) {
+        FitnessTables tables = population.tables();
+        int bytesPerIndex = bytesPerIndex(tables);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(population.getGenerationCount())
+                .putLong(population.getSeed())
+                .putInt(population.capacity())
+                .putDouble(GeneticConstants.MUTATION_RATE)
+                .putInt(tables.numberOfActivities)
+                .putInt(GeneticConstants.PAIRS_PER_BREEDING_TASK)
+                .putInt(tables.numberOfRooms)
+                .putInt(tables.numberOfTimes)
+                .putInt(tables.numberOfFacilitators)
+                .putInt(bytesPerIndex)
+                .putInt(population.size());
+        for (int i = 0; i < population.size(); i++) {
+            putChromosome(buffer, population.chromosomeAt(i), bytesPerIndex);
+        }
+    }
+
+    //A record: the room, time and facilitator indices of every gene, then the fitness in points.
+    //Also the wire format of chromosomes sent between processes, see IslandConnection.
+    static void putChromosome(ByteBuffer buffer, Chromosome chromosome, int bytesPerIndex) {
+        putIndices(buffer, chromosome.rooms(), bytesPerIndex);
+        putIndices(buffer, chromosome.times(), bytesPerIndex);
+        putIndices(buffer, chromosome.facilitators(), bytesPerIndex);
+        buffer.putInt(chromosome.getFitnessPoints());
+    }
+
+    static Chromosome getChromosome(ByteBuffer buffer, FitnessTables tables, int bytesPerIndex) {
+        int[] rooms = new int[tables.numberOfActivities];
+        int[] times = new int[tables.numberOfActivities];
+        int[] facilitators = new int[tables.numberOfActivities];
+        getIndices(buffer, rooms, bytesPerIndex);
+        getIndices(buffer, times, bytesPerIndex);
+        getIndices(buffer, facilitators, bytesPerIndex);
+        Chromosome chromosome = new Chromosome(tables, rooms, times, facilitators);
+        chromosome.setFitnessPoints(buffer.getInt());
+        return chromosome;
+    }
+
+    private static void putIndices(ByteBuffer buffer, int[] indices, int bytesPerIndex) {
+        for (int index : indices) {
+            switch (bytesPerIndex) {
+                case 1 -> buffer.put((byte) index);
+                case 2 -> buffer.putShort((short) index);
+                default -> buffer.putInt(index);
+            }
+        }
+    }
+
+    private static void getIndices(ByteBuffer buffer, int[] indices, int bytesPerIndex) {
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = switch (bytesPerIndex) {
+                case 1 -> Byte.toUnsignedInt(buffer.get());
+                case 2 -> Short.toUnsignedInt(buffer.getShort());
+                default -> buffer.getInt();
+            };
+        }
+    }
+
+    //Writes synchronously; see CheckpointWriter for writing from a running loop
+    public static void write(Population population, Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(population.tables(), population.size()));
+        encode(population, buffer);
+        buffer.flip();
+        writeMapped(buffer, path);
+    }
+
+    //Maps a temporary file, copies the encoded checkpoint in and moves it over the target, so the target is
+    //always a complete checkpoint even if the process dies halfway through a write
+    static void writeMapped(ByteBuffer encoded, Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, encoded.remaining());
+            mapped.put(encoded);
+            mapped.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Population resume(Path path) throws IOException {
+        return resume(path, FitnessTables.DEFAULT, new FitnessCache());
+    }
+
+    //The tables must describe the instance the checkpoint was saved from; only their sizes can be checked
+    public static Population resume(Path path, FitnessTables tables, FitnessCache fitnessCache) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(path + " is too short to be a checkpoint");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(path + " is not a checkpoint");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + " has checkpoint format " + version + ", expected " + VERSION);
+            }
+            int generationCount = buffer.getInt();
+            long seed = buffer.getLong();
+            int populationSize = buffer.getInt();
+            double mutationRate = buffer.getDouble();
+            if (mutationRate != GeneticConstants.MUTATION_RATE) {
+                throw new IOException(path + " was saved with mutation rate " + mutationRate + ", this build uses "
+                        + GeneticConstants.MUTATION_RATE);
+            }
+            requireSame(path, "number of genes", buffer.getInt(), tables.numberOfActivities);
+            requireSame(path, "pairs per breeding task", buffer.getInt(), GeneticConstants.PAIRS_PER_BREEDING_TASK);
+            requireSame(path, "number of rooms", buffer.getInt(), tables.numberOfRooms);
+            requireSame(path, "number of times", buffer.getInt(), tables.numberOfTimes);
+            requireSame(path, "number of facilitators", buffer.getInt(), tables.numberOfFacilitators);
+            int bytesPerIndex = buffer.getInt();
+            requireSame(path, "bytes per index", bytesPerIndex, bytesPerIndex(tables));
+            int numberOfChromosomes = buffer.getInt();
+            if (populationSize < 2 || numberOfChromosomes < 0 || numberOfChromosomes > populationSize
+                    || channel.size() != encodedSize(tables, numberOfChromosomes)) {
+                throw new IOException(path + " is truncated or holds an invalid number of chromosomes");
+            }
+
+            Chromosome[] chromosomes = new Chromosome[numberOfChromosomes];
+            for (int i = 0; i < numberOfChromosomes; i++) {
+                chromosomes[i] = getChromosome(buffer, tables, bytesPerIndex);
+            }
+            return new Population(new RandomProvider(seed), fitnessCache, tables, populationSize, chromosomes,
+                    generationCount);
+        }
+    }
+
+    private static void requireSame(Path path, String name, int saved, int current) throws IOException {
+        if (saved != current) {
+            throw new IOException(path + " was saved with " + name + " " + saved + ", this build has " + current);
+        }
+    }
+}
@@ -7,10 +7,11 @@ public class ProbabilityDistributor<T extends Probability> {
     private int startIndex;
     private final List<Double> probabilities;
     private final List<T> items;
-    private final static SplittableRandom random = new SplittableRandom();
+    private final SplittableRandom random;
 
-    public ProbabilityDistributor(List<T> items) {
+    public ProbabilityDistributor(List<T> items, SplittableRandom random) {
         startIndex = 0;
+        this.random = random;
         this.items = items;
         probabilities = items.stream()
                 .map(Probability::getProbability)
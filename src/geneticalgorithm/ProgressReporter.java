@@ -0,0 +1,182 @@
+package geneticalgorithm;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+//Reports the progress of a run without making the generation loop wait for the console. report() copies a
+//fixed-size summary of the generation (no chromosome) into a preallocated ring and returns; a background thread
+//formats and prints the summaries. One thread reports and one prints, so the ring only needs two counters.
+//If the printer falls a whole ring behind, summaries are dropped, counted, and the loop carries on.
+//A summary is taken every everyGenerations generations and/or every everyMillis milliseconds (0 disables a
+//rule; with both 0 every generation is reported). A quiet reporter takes and prints nothing.
+public final class ProgressReporter implements AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final PrintStream out;
+    private final int everyGenerations;
+    private final long everyNanos;
+    private final boolean quiet;
+
+    //The ring, one slot per summary
+    private final int mask;
+    private final int[] generations;
+    private final int[] counts;
+    private final double[] bestFitness;
+    private final double[] meanFitness;
+    private final double[] worstFitness;
+    private final double[] fitnessVariance;
+    private final long[] elapsedNanos;
+    //Summaries written by report() and summaries printed; both only ever grow
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+
+    private final long startNanos;
+    private long lastReportNanos;
+    private long droppedSummaries;
+    private volatile boolean closed;
+    private final Thread printer;
+
+    public ProgressReporter(PrintStream out, int everyGenerations, long everyMillis) {
+        this(out, everyGenerations, everyMillis, GeneticConstants.PROGRESS_RING_CAPACITY, false);
+    }
+
+    private ProgressReporter(PrintStream out, int everyGenerations, long everyMillis, int capacity, boolean quiet) {
+        if (everyGenerations < 0 || everyMillis < 0) {
+            throw new IllegalArgumentException("Sampling intervals must not be negative");
+        }
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The ring capacity must be a power of two, was " + capacity);
+        }
+        this.out = out;
+        this.everyGenerations = everyGenerations;
+        everyNanos = TimeUnit.MILLISECONDS.toNanos(everyMillis);
+        this.quiet = quiet;
+        mask = capacity - 1;
+        generations = new int[capacity];
+        counts = new int[capacity];
+        bestFitness = new double[capacity];
+        meanFitness = new double[capacity];
+        worstFitness = new double[capacity];
+        fitnessVariance = new double[capacity];
+        elapsedNanos = new long[capacity];
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos;
+        if (quiet) {
+            printer = null;
+        } else {
+            printer = new Thread(this::printSummaries, "progress-reporter");
+            printer.setDaemon(true);
+            printer.start();
+        }
+    }
+
+    public static ProgressReporter quiet() {
+        return new ProgressReporter(null, 0, 0, 1, true);
+    }
+
+    public void report(Population population) {
+        report(population.getGenerationCount(), population.getStatistics());
+    }
+
+    public void report(OffHeapPopulation population) {
+        report(population.getGenerationCount(), population.getStatistics());
+    }
+
+    //Called from the generation loop only
+    public void report(int generation, GenerationStatistics statistics) {
+        if (quiet || !isSampled(generation)) {
+            return;
+        }
+        long sequence = published.get();
+        if (sequence - consumed.get() > mask) {
+            droppedSummaries++;
+            return;
+        }
+        int slot = (int) sequence & mask;
+        generations[slot] = generation;
+        counts[slot] = statistics.getCount();
+        bestFitness[slot] = statistics.getBestFitness();
+        meanFitness[slot] = statistics.getMeanFitness();
+        worstFitness[slot] = statistics.getWorstFitness();
+        fitnessVariance[slot] = statistics.getFitnessVariance();
+        elapsedNanos[slot] = lastReportNanos - startNanos;
+        //Release: the printer sees the slot complete once it sees the new count
+        published.lazySet(sequence + 1);
+    }
+
+    private boolean isSampled(int generation) {
+        if (everyGenerations == 0 && everyNanos == 0) {
+            lastReportNanos = System.nanoTime();
+            return true;
+        }
+        boolean sampled = everyGenerations > 0 && generation % everyGenerations == 0;
+        if (everyNanos > 0) {
+            long now = System.nanoTime();
+            if (sampled || now - lastReportNanos >= everyNanos) {
+                lastReportNanos = now;
+                return true;
+            }
+            return false;
+        }
+        if (sampled) {
+            lastReportNanos = System.nanoTime();
+        }
+        return sampled;
+    }
+
+    public long getDroppedSummaries() {
+        return droppedSummaries;
+    }
+
+    private void printSummaries() {
+        StringBuilder line = new StringBuilder(128);
+        while (true) {
+            boolean finished = closed;
+            long sequence = consumed.get();
+            long end = published.get();
+            if (sequence == end) {
+                if (finished) {
+                    out.flush();
+                    return;
+                }
+                out.flush();
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            for (; sequence < end; sequence++) {
+                int slot = (int) sequence & mask;
+                line.setLength(0);
+                line.append("Generation ").append(generations[slot])
+                        .append(" (").append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos[slot])).append(" ms)")
+                        .append(": best=").append(bestFitness[slot])
+                        .append(", mean=").append(meanFitness[slot])
+                        .append(", worst=").append(worstFitness[slot])
+                        .append(", variance=").append(fitnessVariance[slot])
+                        .append(", count=").append(counts[slot]);
+                out.println(line);
+                consumed.lazySet(sequence + 1);
+            }
+        }
+    }
+
+    //Prints whatever is still in the ring and stops the printer
+    @Override
+    public void close() {
+        if (quiet) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(printer);
+        try {
+            printer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (droppedSummaries > 0) {
+            out.println("Progress summaries dropped: " + droppedSummaries);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+
+//Derives every random stream of a run from one seed. A stream is keyed by what it is used for (purpose,
+//generation and task number), never by the thread that happens to run it, so a run replays exactly from its
+//seed whatever the number of cores. Each caller owns its stream, so there is no shared state to contend on.
+public final class RandomProvider {
+
+    public enum Purpose {
+        INITIAL_POPULATION,
+        BREEDING,
+        ISLAND,
+        MIGRATION,
+        LOCAL_SEARCH
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+
+    public RandomProvider(long seed) {
+        this.seed = seed;
+    }
+
+    public static RandomProvider withRandomSeed() {
+        return new RandomProvider(new SplittableRandom().nextLong());
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public SplittableRandom streamFor(Purpose purpose, long generation, long task) {
+        long key = mix64(seed + GOLDEN_GAMMA * (purpose.ordinal() + 1));
+        key = mix64(key + GOLDEN_GAMMA * (generation + 1));
+        key = mix64(key + GOLDEN_GAMMA * (task + 1));
+        return new SplittableRandom(key);
+    }
+
+    public SplittableRandom streamFor(Purpose purpose) {
+        return streamFor(purpose, 0, 0);
+    }
+
+    //An independent provider, e.g. for one island of an IslandModel
+    public RandomProvider derive(Purpose purpose, long task) {
+        return new RandomProvider(streamFor(purpose, 0, task).nextLong());
+    }
+
+    //The finalizer SplittableRandom itself uses to turn a sequence of keys into independent seeds
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
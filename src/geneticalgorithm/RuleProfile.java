@@ -0,0 +1,197 @@
+package geneticalgorithm;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+//How often each fitness rule fires and what it contributes, over the chromosomes a Population evaluates.
+//The evaluators only keep totals, so recording scores a chromosome a second time, rule by rule; the points of
+//a recorded chromosome add up to its fitness. Also the time spent on each kind of rule in that second pass,
+//which only shows their relative cost. Thread safe: breeding tasks record their offspring in parallel.
+public final class RuleProfile {
+
+    private final FitnessTables tables;
+    //[activity * numberOfRooms + room] and [activity * numberOfFacilitators + facilitator], Weight ordinals
+    private final int[] roomSizeRules;
+    private final int[] preferenceRules;
+    //Per gene rule, what it tests, the value it names and the activities it applies to
+    private final FitnessRules.Target[] geneRuleTargets;
+    private final int[] geneRuleValues;
+    private final boolean[][] geneRuleActivities;
+
+    private final LongAdder[] weightHits = adders(FitnessRules.Weight.values().length);
+    private final LongAdder[] geneRuleHits;
+    private final LongAdder[] kindNanos = adders(FitnessRules.Kind.values().length);
+    private final LongAdder chromosomes = new LongAdder();
+
+    public RuleProfile(FitnessTables tables) {
+        this.tables = tables;
+        FitnessRules rules = tables.rules;
+        roomSizeRules = new int[tables.numberOfActivities * tables.numberOfRooms];
+        preferenceRules = new int[tables.numberOfActivities * tables.numberOfFacilitators];
+        for (int activity = 0; activity < tables.numberOfActivities; activity++) {
+            for (int room = 0; room < tables.numberOfRooms; room++) {
+                roomSizeRules[activity * tables.numberOfRooms + room] = rules.roomSizeRule(
+                        tables.activities.get(activity).expectedEnrollment(), tables.rooms.get(room).capacity())
+                        .ordinal();
+            }
+            for (int facilitator = 0; facilitator < tables.numberOfFacilitators; facilitator++) {
+                preferenceRules[activity * tables.numberOfFacilitators + facilitator] = rules.preferenceRule(
+                        tables.activities.get(activity), tables.facilitators.get(facilitator)).ordinal();
+            }
+        }
+        List<FitnessRules.GeneRule> geneRules = rules.getGeneRules();
+        geneRuleTargets = new FitnessRules.Target[geneRules.size()];
+        geneRuleValues = new int[geneRules.size()];
+        geneRuleActivities = new boolean[geneRules.size()][tables.numberOfActivities];
+        for (int rule = 0; rule < geneRules.size(); rule++) {
+            geneRuleTargets[rule] = geneRules.get(rule).target();
+            geneRuleValues[rule] = tables.indexOfValue(geneRules.get(rule));
+            for (int activity = 0; activity < tables.numberOfActivities; activity++) {
+                geneRuleActivities[rule][activity] = geneRules.get(rule).matches(tables.activities.get(activity));
+            }
+        }
+        geneRuleHits = adders(geneRules.size());
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public FitnessTables tables() {
+        return tables;
+    }
+
+    //Counts the rules that fire for the chromosome and returns their points, which equal its fitness points
+    public int record(Chromosome chromosome) {
+        if (chromosome.tables() != tables) {
+            throw new IllegalArgumentException("The chromosome is for another instance than this profile");
+        }
+        int[] rooms = chromosome.rooms();
+        int[] times = chromosome.times();
+        int[] facilitators = chromosome.facilitators();
+        int numberOfTimes = tables.numberOfTimes;
+        long[] hits = new long[weightHits.length];
+        long[] ruleHits = new long[geneRuleHits.length];
+        int extraPoints = 0;
+
+        long start = System.nanoTime();
+        for (int gene = 0; gene < rooms.length; gene++) {
+            hits[roomSizeRules[gene * tables.numberOfRooms + rooms[gene]]]++;
+            hits[preferenceRules[gene * tables.numberOfFacilitators + facilitators[gene]]]++;
+            for (int rule = 0; rule < ruleHits.length; rule++) {
+                int value = switch (geneRuleTargets[rule]) {
+                    case ROOM -> rooms[gene];
+                    case TIME -> times[gene];
+                    case FACILITATOR -> facilitators[gene];
+                };
+                if (geneRuleActivities[rule][gene] && geneRuleValues[rule] == value) {
+                    ruleHits[rule]++;
+                    extraPoints += tables.rules.getGeneRules().get(rule).points();
+                }
+            }
+        }
+        long geneEnd = System.nanoTime();
+
+        int[] roomTimeCounts = new int[tables.numberOfRooms * numberOfTimes];
+        int[] facilitatorTimeCounts = new int[tables.numberOfFacilitators * numberOfTimes];
+        for (int gene = 0; gene < rooms.length; gene++) {
+            roomTimeCounts[rooms[gene] * numberOfTimes + times[gene]]++;
+            facilitatorTimeCounts[facilitators[gene] * numberOfTimes + times[gene]]++;
+        }
+        for (int gene = 0; gene < rooms.length; gene++) {
+            if (roomTimeCounts[rooms[gene] * numberOfTimes + times[gene]] > 1) {
+                hits[FitnessRules.Weight.ROOM_CLASH.ordinal()]++;
+            }
+            hits[facilitatorTimeCounts[facilitators[gene] * numberOfTimes + times[gene]] == 1
+                    ? FitnessRules.Weight.FACILITATOR_SINGLE_SLOT.ordinal()
+                    : FitnessRules.Weight.FACILITATOR_DOUBLE_BOOKED.ordinal()]++;
+        }
+        long pairwiseEnd = System.nanoTime();
+
+        int[] facilitatorLoads = new int[tables.numberOfFacilitators];
+        for (int facilitator : facilitators) {
+            facilitatorLoads[facilitator]++;
+        }
+        for (int facilitator = 0; facilitator < facilitatorLoads.length; facilitator++) {
+            int load = facilitatorLoads[facilitator];
+            if (load > tables.maxLoad) {
+                hits[FitnessRules.Weight.FACILITATOR_OVERLOAD.ordinal()] += load;
+            } else if (load < tables.minLoad && !tables.exemptFromLowLoad[facilitator]) {
+                hits[FitnessRules.Weight.FACILITATOR_UNDERLOAD.ordinal()] += load;
+            }
+        }
+        long facilitatorEnd = System.nanoTime();
+
+        FitnessEvaluator.sectionPoints(tables, rooms, times, hits);
+        int[] pair = new FitnessState(tables, rooms, times, facilitators).consecutiveFacilitatorPair();
+        if (pair != null) {
+            hits[FitnessRules.Weight.FACILITATOR_CONSECUTIVE.ordinal()]++;
+            if (tables.avoidanceRooms[rooms[pair[0]]] != tables.avoidanceRooms[rooms[pair[1]]]) {
+                hits[FitnessRules.Weight.CONSECUTIVE_ROOM_AVOIDANCE.ordinal()]++;
+            }
+        }
+        long sectionEnd = System.nanoTime();
+
+        kindNanos[FitnessRules.Kind.GENE.ordinal()].add(geneEnd - start);
+        kindNanos[FitnessRules.Kind.PAIRWISE.ordinal()].add(pairwiseEnd - geneEnd);
+        kindNanos[FitnessRules.Kind.FACILITATOR.ordinal()].add(facilitatorEnd - pairwiseEnd);
+        kindNanos[FitnessRules.Kind.SECTION_PAIR.ordinal()].add(sectionEnd - facilitatorEnd);
+        int points = extraPoints;
+        for (FitnessRules.Weight weight : FitnessRules.Weight.values()) {
+            weightHits[weight.ordinal()].add(hits[weight.ordinal()]);
+            points += (int) hits[weight.ordinal()] * tables.rules.points(weight);
+        }
+        for (int rule = 0; rule < ruleHits.length; rule++) {
+            geneRuleHits[rule].add(ruleHits[rule]);
+        }
+        chromosomes.increment();
+        return points;
+    }
+
+    public long getChromosomes() {
+        return chromosomes.sum();
+    }
+
+    //For the pairwise and facilitator rules one hit is one gene
+    public long getHits(FitnessRules.Weight weight) {
+        return weightHits[weight.ordinal()].sum();
+    }
+
+    public double getFitness(FitnessRules.Weight weight) {
+        return getHits(weight) * tables.rules.points(weight) / FitnessEvaluator.POINTS_PER_UNIT;
+    }
+
+    //Indexed like FitnessRules.getGeneRules
+    public long getGeneRuleHits(int rule) {
+        return geneRuleHits[rule].sum();
+    }
+
+    public long getNanos(FitnessRules.Kind kind) {
+        return kindNanos[kind.ordinal()].sum();
+    }
+
+    @Override
+    public String toString() {
+        long n = Math.max(1, getChromosomes());
+        StringBuilder builder = new StringBuilder("RuleProfile{chromosomes=").append(getChromosomes());
+        for (FitnessRules.Weight weight : FitnessRules.Weight.values()) {
+            builder.append(String.format(Locale.ROOT, "%n  %-28s hits/chromosome=%8.3f fitness/chromosome=%8.3f",
+                    weight.getKey(), (double) getHits(weight) / n, getFitness(weight) / n));
+        }
+        List<FitnessRules.GeneRule> geneRules = tables.rules.getGeneRules();
+        for (int rule = 0; rule < geneRules.size(); rule++) {
+            builder.append(String.format(Locale.ROOT, "%n  %-28s hits/chromosome=%8.3f fitness/chromosome=%8.3f",
+                    "gene." + geneRules.get(rule).name(), (double) getGeneRuleHits(rule) / n,
+                    getGeneRuleHits(rule) * geneRules.get(rule).points() / FitnessEvaluator.POINTS_PER_UNIT / n));
+        }
+        for (FitnessRules.Kind kind : FitnessRules.Kind.values()) {
+            builder.append(String.format(Locale.ROOT, "%n  %s ns/chromosome=%.1f", kind, (double) getNanos(kind) / n));
+        }
+        return builder.append("\n}").toString();
+    }
+}
@@ -0,0 +1,66 @@
+package geneticalgorithm;
+
+//Plain loops, one chromosome at a time, used when the jdk.incubator.vector module is not available.
+//The clash and load counts come from occupancy tables, so a chromosome costs one pass over its genes to count
+//and one to score. Not thread safe: each evaluator has its own kernel.
+final class ScalarGenePointsKernel implements GenePointsKernel {
+    private final int[] roomTimeCounts;
+    private final int[] facilitatorTimeCounts;
+    private final int[] facilitatorLoads;
+
+    ScalarGenePointsKernel(FitnessTables tables) {
+        roomTimeCounts = new int[tables.numberOfRooms * tables.numberOfTimes];
+        facilitatorTimeCounts = new int[tables.numberOfFacilitators * tables.numberOfTimes];
+        facilitatorLoads = new int[tables.numberOfFacilitators];
+    }
+
+    @Override
+    public int lanes() {
+        return 1;
+    }
+
+    @Override
+    public void sumGenePoints(FitnessTables tables, BatchColumns columns, int count, int[] genePoints) {
+        int numberOfGenes = tables.numberOfActivities;
+        int stride = columns.stride;
+        boolean hasTimePoints = tables.hasTimePoints;
+        for (int c = 0; c < count; c++) {
+            for (int gene = 0; gene < numberOfGenes; gene++) {
+                int index = gene * stride + c;
+                roomTimeCounts[columns.roomTimeCells[index]]++;
+                facilitatorTimeCounts[columns.facilitatorTimeCells[index]]++;
+                facilitatorLoads[columns.facilitators[index]]++;
+            }
+
+            int points = 0;
+            for (int gene = 0; gene < numberOfGenes; gene++) {
+                int index = gene * stride + c;
+                int facilitator = columns.facilitators[index];
+                points += tables.roomPoints[columns.roomCells[index]]
+                        + tables.facilitatorPoints[columns.facilitatorCells[index]];
+                if (hasTimePoints) {
+                    points += tables.timePoints[columns.timeCells[index]];
+                }
+                if (roomTimeCounts[columns.roomTimeCells[index]] > 1) {
+                    points += tables.roomClashPoints;
+                }
+                points += facilitatorTimeCounts[columns.facilitatorTimeCells[index]] == 1 ? tables.singleSlotPoints
+                        : tables.doubleBookedPoints;
+                if (facilitatorLoads[facilitator] > tables.maxLoad) {
+                    points += tables.overloadPoints;
+                } else if (facilitatorLoads[facilitator] < tables.minLoad) {
+                    points += tables.lowLoadPoints[facilitator];
+                }
+            }
+            genePoints[c] = points;
+
+            //Undo only the cells this chromosome touched, so the tables are zero again for the next one
+            for (int gene = 0; gene < numberOfGenes; gene++) {
+                int index = gene * stride + c;
+                roomTimeCounts[columns.roomTimeCells[index]] = 0;
+                facilitatorTimeCounts[columns.facilitatorTimeCells[index]] = 0;
+                facilitatorLoads[columns.facilitators[index]] = 0;
+            }
+        }
+    }
+}
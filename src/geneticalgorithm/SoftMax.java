@@ -1,18 +1,35 @@
 package geneticalgorithm;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class SoftMax {
     public static List<Double> normalize(List<Double> inputs) {
-        double totalExponentiation = calculateTotalExponentiation(inputs);
-        return inputs.stream()
-                .map(input -> Math.exp(input) / totalExponentiation)
-                .toList();
+        double[] normalized = normalize(inputs.stream().mapToDouble(Double::doubleValue).toArray());
+        return Arrays.stream(normalized).boxed().toList();
     }
 
-    private static double calculateTotalExponentiation(List<Double> inputs) {
-        return inputs.stream()
-                .mapToDouble(Math::exp)
-                .sum();
+    //Shifts every input by the maximum before exponentiating, so large fitness scores cannot overflow to infinity
+    public static double[] normalize(double[] inputs) {
+        double[] outputs = new double[inputs.length];
+        normalize(inputs, outputs, inputs.length);
+        return outputs;
+    }
+
+    //Normalizes the first count inputs into outputs, which may be the same array
+    public static void normalize(double[] inputs, double[] outputs, int count) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, inputs[i]);
+        }
+
+        double totalExponentiation = 0;
+        for (int i = 0; i < count; i++) {
+            outputs[i] = Math.exp(inputs[i] - max);
+            totalExponentiation += outputs[i];
+        }
+        for (int i = 0; i < count; i++) {
+            outputs[i] /= totalExponentiation;
+        }
     }
 }
@@ -0,0 +1,86 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+
+//Tabu search: every iteration scores a sample of random moves and applies the best of them even if it loses
+//points, so the search can walk out of a local optimum. Genes moved in the last tenure iterations are tabu
+//unless moving them would beat the best schedule seen. Ends on the best schedule seen.
+public final class TabuSearch implements LocalSearch {
+
+    private final int maxIterations;
+    private final int movesPerIteration;
+    private final int tenure;
+
+    public TabuSearch() {
+        this(GeneticConstants.TABU_ITERATIONS, GeneticConstants.TABU_MOVES_PER_ITERATION, GeneticConstants.TABU_TENURE);
+    }
+
+    public TabuSearch(int maxIterations, int movesPerIteration, int tenure) {
+        if (maxIterations < 1 || movesPerIteration < 1 || tenure < 0) {
+            throw new IllegalArgumentException("Need at least one iteration of at least one move and a tenure of "
+                    + "at least 0");
+        }
+        this.maxIterations = maxIterations;
+        this.movesPerIteration = movesPerIteration;
+        this.tenure = tenure;
+    }
+
+    @Override
+    public int improve(Chromosome chromosome, SplittableRandom random, long deadlineNanos) {
+        int[] rooms = chromosome.rooms();
+        int[] times = chromosome.times();
+        int[] facilitators = chromosome.facilitators();
+        int[] bestRooms = rooms.clone();
+        int[] bestTimes = times.clone();
+        int[] bestFacilitators = facilitators.clone();
+        //[gene], the first iteration the gene may move again; at most half the genes are tabu at once
+        int[] tabuUntil = new int[rooms.length];
+        int geneTenure = Math.min(tenure, rooms.length / 2);
+
+        LocalSearchMove move = new LocalSearchMove();
+        LocalSearchMove chosenMove = new LocalSearchMove();
+        int points = chromosome.fitnessState().getPoints();
+        int bestPoints = points;
+        int scoredMoves = 0;
+        for (int iteration = 0; iteration < maxIterations && System.nanoTime() < deadlineNanos; iteration++) {
+            int chosenDelta = Integer.MIN_VALUE;
+            for (int i = 0; i < movesPerIteration; i++) {
+                move.sample(chromosome, random);
+                int delta = move.pointsDelta(chromosome);
+                scoredMoves++;
+                boolean tabu = tabuUntil[move.gene] > iteration
+                        || move.otherGene >= 0 && tabuUntil[move.otherGene] > iteration;
+                if ((!tabu || points + delta > bestPoints) && delta > chosenDelta) {
+                    chosenMove.copyFrom(move);
+                    chosenDelta = delta;
+                }
+            }
+            if (chosenDelta == Integer.MIN_VALUE) {
+                continue;
+            }
+            chosenMove.apply(chromosome);
+            points += chosenDelta;
+            tabuUntil[chosenMove.gene] = iteration + 1 + geneTenure;
+            if (chosenMove.otherGene >= 0) {
+                tabuUntil[chosenMove.otherGene] = iteration + 1 + geneTenure;
+            }
+            if (points > bestPoints) {
+                bestPoints = points;
+                System.arraycopy(rooms, 0, bestRooms, 0, rooms.length);
+                System.arraycopy(times, 0, bestTimes, 0, times.length);
+                System.arraycopy(facilitators, 0, bestFacilitators, 0, facilitators.length);
+            }
+        }
+
+        if (points < bestPoints) {
+            for (int gene = 0; gene < rooms.length; gene++) {
+                if (rooms[gene] != bestRooms[gene] || times[gene] != bestTimes[gene]
+                        || facilitators[gene] != bestFacilitators[gene]) {
+                    chromosome.setGene(gene, bestRooms[gene], bestTimes[gene], bestFacilitators[gene]);
+                }
+            }
+        }
+        chromosome.calculateFitness();
+        return scoredMoves;
+    }
+}
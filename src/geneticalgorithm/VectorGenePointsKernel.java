@@ -0,0 +1,111 @@
+package geneticalgorithm;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+//One lane per chromosome, as many chromosomes at a time as the widest vector the CPU has (16 with AVX-512).
+//The batch is padded to whole vectors, so no lane ever needs masking.
+//As in the scalar kernel the clash and load counts come from occupancy tables, one per lane, interleaved as
+//[cell * lanes + lane]: lanes never share a slot, so counting is a plain increment per gene and lane. A scalar
+//pass copies each gene's counts into contiguous vectors for scoring. That keeps a batch linear in the genome
+//length.
+//Gathers index the tables from 0 with precomputed cells: on JDK 21.0.1 with AVX-512, C2 miscompiles gathers
+//with a base offset into a crash once instances are larger than the course data. Gathering the counts through
+//slots written in the same method crashed it as well, hence the scalar copy.
+//Only loaded when the jdk.incubator.vector module is present, see BatchFitnessEvaluator. Not thread safe: each
+//evaluator has its own kernel.
+final class VectorGenePointsKernel implements GenePointsKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final int lanes = SPECIES.length();
+    //[cell * lanes + lane]
+    private final int[] roomTimeCounts;
+    private final int[] facilitatorTimeCounts;
+    private final int[] facilitatorLoads;
+    //[gene * lanes + lane], the slots of the current vector of chromosomes in the tables above
+    private final int[] roomTimeSlots;
+    private final int[] facilitatorTimeSlots;
+    private final int[] facilitatorSlots;
+    //The counts of one gene in every lane
+    private final int[] roomTimeCount;
+    private final int[] facilitatorTimeCount;
+    private final int[] facilitatorLoad;
+
+    VectorGenePointsKernel(FitnessTables tables) {
+        roomTimeCounts = new int[tables.numberOfRooms * tables.numberOfTimes * lanes];
+        facilitatorTimeCounts = new int[tables.numberOfFacilitators * tables.numberOfTimes * lanes];
+        facilitatorLoads = new int[tables.numberOfFacilitators * lanes];
+        roomTimeSlots = new int[tables.numberOfActivities * lanes];
+        facilitatorTimeSlots = new int[tables.numberOfActivities * lanes];
+        facilitatorSlots = new int[tables.numberOfActivities * lanes];
+        roomTimeCount = new int[lanes];
+        facilitatorTimeCount = new int[lanes];
+        facilitatorLoad = new int[lanes];
+    }
+
+    @Override
+    public int lanes() {
+        return lanes;
+    }
+
+    @Override
+    public void sumGenePoints(FitnessTables tables, BatchColumns columns, int count, int[] genePoints) {
+        int numberOfGenes = tables.numberOfActivities;
+        int stride = columns.stride;
+        for (int c = 0; c < count; c += lanes) {
+            for (int gene = 0; gene < numberOfGenes; gene++) {
+                int index = gene * stride + c;
+                int slot = gene * lanes;
+                for (int lane = 0; lane < lanes; lane++) {
+                    roomTimeSlots[slot + lane] = columns.roomTimeCells[index + lane] * lanes + lane;
+                    facilitatorTimeSlots[slot + lane] = columns.facilitatorTimeCells[index + lane] * lanes + lane;
+                    facilitatorSlots[slot + lane] = columns.facilitators[index + lane] * lanes + lane;
+                    roomTimeCounts[roomTimeSlots[slot + lane]]++;
+                    facilitatorTimeCounts[facilitatorTimeSlots[slot + lane]]++;
+                    facilitatorLoads[facilitatorSlots[slot + lane]]++;
+                }
+            }
+
+            IntVector points = IntVector.zero(SPECIES);
+            for (int gene = 0; gene < numberOfGenes; gene++) {
+                int index = gene * stride + c;
+                int slot = gene * lanes;
+                for (int lane = 0; lane < lanes; lane++) {
+                    roomTimeCount[lane] = roomTimeCounts[roomTimeSlots[slot + lane]];
+                    facilitatorTimeCount[lane] = facilitatorTimeCounts[facilitatorTimeSlots[slot + lane]];
+                    facilitatorLoad[lane] = facilitatorLoads[facilitatorSlots[slot + lane]];
+                }
+                IntVector roomTimeCounted = IntVector.fromArray(SPECIES, roomTimeCount, 0);
+                IntVector facilitatorTimeCounted = IntVector.fromArray(SPECIES, facilitatorTimeCount, 0);
+                IntVector facilitatorLoaded = IntVector.fromArray(SPECIES, facilitatorLoad, 0);
+
+                points = points
+                        .add(IntVector.fromArray(SPECIES, tables.roomPoints, 0, columns.roomCells, index))
+                        .add(IntVector.fromArray(SPECIES, tables.facilitatorPoints, 0, columns.facilitatorCells, index))
+                        .add(tables.roomClashPoints, roomTimeCounted.compare(VectorOperators.GT, 1))
+                        .add(IntVector.broadcast(SPECIES, tables.doubleBookedPoints)
+                                .blend(tables.singleSlotPoints, facilitatorTimeCounted.compare(VectorOperators.EQ, 1)));
+                if (tables.hasTimePoints) {
+                    points = points.add(IntVector.fromArray(SPECIES, tables.timePoints, 0, columns.timeCells, index));
+                }
+
+                VectorMask<Integer> overloaded = facilitatorLoaded.compare(VectorOperators.GT, tables.maxLoad);
+                VectorMask<Integer> underloaded = facilitatorLoaded.compare(VectorOperators.LT, tables.minLoad);
+                points = points
+                        .add(tables.overloadPoints, overloaded)
+                        .add(IntVector.fromArray(SPECIES, tables.lowLoadPoints, 0, columns.facilitators, index)
+                                .blend(0, underloaded.not()));
+            }
+            points.intoArray(genePoints, c);
+
+            //Undo only the slots these chromosomes touched, so the tables are zero again for the next vector
+            for (int slot = 0; slot < numberOfGenes * lanes; slot++) {
+                roomTimeCounts[roomTimeSlots[slot]] = 0;
+                facilitatorTimeCounts[facilitatorTimeSlots[slot]] = 0;
+                facilitatorLoads[facilitatorSlots[slot]] = 0;
+            }
+        }
+    }
+}
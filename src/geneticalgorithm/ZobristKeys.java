@@ -0,0 +1,48 @@
+package geneticalgorithm;
+
+import java.util.SplittableRandom;
+
+//Random 64-bit keys for Zobrist hashing of genomes. The hash of a genome is the XOR of one key per
+//(activity, room), (activity, time) and (activity, facilitator) assignment, so reassigning a gene updates the
+//hash with a few XORs. The keys come from a fixed seed, so hashes are the same in every run.
+//Every FitnessTables makes its own keys; the tables are still being built then, only their sizes are read.
+final class ZobristKeys {
+
+    static final long SEED = 0x5DEECE66DL;
+
+    private final int numberOfRooms;
+    private final int numberOfTimes;
+    private final int numberOfFacilitators;
+    //[activity * numberOfRooms + room] and likewise for times and facilitators
+    private final long[] roomKeys;
+    private final long[] timeKeys;
+    private final long[] facilitatorKeys;
+
+    ZobristKeys(FitnessTables tables, long seed) {
+        numberOfRooms = tables.numberOfRooms;
+        numberOfTimes = tables.numberOfTimes;
+        numberOfFacilitators = tables.numberOfFacilitators;
+        SplittableRandom random = new SplittableRandom(seed);
+        roomKeys = random.longs((long) tables.numberOfActivities * numberOfRooms).toArray();
+        timeKeys = random.longs((long) tables.numberOfActivities * numberOfTimes).toArray();
+        facilitatorKeys = random.longs((long) tables.numberOfActivities * numberOfFacilitators).toArray();
+    }
+
+    long geneKey(int gene, int room, int time, int facilitator) {
+        return roomKeys[gene * numberOfRooms + room]
+                ^ timeKeys[gene * numberOfTimes + time]
+                ^ facilitatorKeys[gene * numberOfFacilitators + facilitator];
+    }
+
+    long hash(int[] rooms, int[] times, int[] facilitators) {
+        return hashRange(rooms, times, facilitators, 0, rooms.length);
+    }
+
+    long hashRange(int[] rooms, int[] times, int[] facilitators, int from, int to) {
+        long hash = 0;
+        for (int i = from; i < to; i++) {
+            hash ^= geneKey(i, rooms[i], times[i], facilitators[i]);
+        }
+        return hash;
+    }
+}